@@ -0,0 +1,84 @@
+package example.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.domain.game.Direction;
+import example.domain.game.Item;
+import example.domain.game.Location;
+import example.domain.game.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"10", "1000"})
+    public int players;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Request command = new Request.Command(Direction.Left);
+    private final Request authorize = new Request.Authorize("1234", new Request.Authorize.Options(true, null, null, null, null));
+    private Response state;
+    private byte[] commandBytes;
+    private byte[] authorizeBytes;
+    private byte[] stateBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        final var random = new Random(SEED);
+        final var itemLocations = new ArrayList<Response.StateLocations.ItemLocation>();
+        for (int i = 0; i < 3; i++) {
+            itemLocations.add(new Response.StateLocations.ItemLocation(new Item.Gold(i, random.nextInt(100)), new Location(random.nextInt(1000), random.nextInt(1000))));
+            itemLocations.add(new Response.StateLocations.ItemLocation(new Item.Health(i, random.nextInt(100)), new Location(random.nextInt(1000), random.nextInt(1000))));
+        }
+        final var playerLocations = new ArrayList<Response.StateLocations.PlayerLocation>();
+        for (int i = 0; i < players; i++) {
+            playerLocations.add(new Response.StateLocations.PlayerLocation(new Player.HumanPlayer("Player " + i), new Location(random.nextInt(1000), random.nextInt(1000))));
+        }
+        state = new Response.StateLocations(itemLocations, playerLocations, 500, 100);
+
+        commandBytes = objectMapper.writeValueAsBytes(command);
+        authorizeBytes = objectMapper.writeValueAsBytes(authorize);
+        stateBytes = objectMapper.writeValueAsBytes(state);
+    }
+
+    @Benchmark
+    public byte[] encodeCommand() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(command);
+    }
+
+    @Benchmark
+    public Request decodeCommand() throws IOException {
+        return objectMapper.readValue(commandBytes, Request.class);
+    }
+
+    @Benchmark
+    public byte[] encodeAuthorize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(authorize);
+    }
+
+    @Benchmark
+    public Request decodeAuthorize() throws IOException {
+        return objectMapper.readValue(authorizeBytes, Request.class);
+    }
+
+    @Benchmark
+    public byte[] encodeStateLocations() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(state);
+    }
+
+    @Benchmark
+    public Response decodeStateLocations() throws IOException {
+        return objectMapper.readValue(stateBytes, Response.class);
+    }
+}
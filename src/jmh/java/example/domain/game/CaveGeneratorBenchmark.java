@@ -0,0 +1,28 @@
+package example.domain.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CaveGeneratorBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"1000", "4000", "10000"})
+    public int size;
+
+    @Benchmark
+    public Cave cellularAutomata() {
+        return CaveGenerator.generateUsingCellularAutomata(size, size, SEED);
+    }
+
+    @Benchmark
+    public Cave drunkenWalk() {
+        return CaveGenerator.generateUsingDrunkenWalk(size, size, SEED);
+    }
+}
@@ -0,0 +1,75 @@
+package example.game;
+
+import example.domain.game.Action;
+import example.domain.game.CaveGenerator;
+import example.domain.game.Direction;
+import example.domain.game.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStepBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"200", "1000"})
+    public int size;
+
+    @Param({"1000", "10000"})
+    public int players;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    @Param({"0", "500"})
+    public int dragons;
+
+    private Game game;
+    private List<List<Action>> commands;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = new Game(CaveGenerator.generateUsingDrunkenWalk(size, size, SEED), SEED);
+        if (parallel) {
+            game.parallel(ForkJoinPool.commonPool());
+        }
+
+        final var all = new ArrayList<Player>();
+        for (int i = 0; i < players; i++) {
+            final var player = new Player.HumanPlayer("Player " + i);
+            all.add(player);
+            game.add(player, game::randomLocation);
+        }
+
+        final var sizes = Player.Dragon.Size.values();
+        for (int i = 0; i < dragons; i++) {
+            game.add(new Player.Dragon(i, sizes[i % sizes.length]), game::randomLocation);
+        }
+
+        // a fixed cycle of commands, every player sends one per tick
+        final var random = new Random(SEED);
+        final var directions = Direction.values();
+        commands = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            final var actions = new ArrayList<Action>(players);
+            all.forEach(player -> actions.add(new Action(player, directions[random.nextInt(directions.length)])));
+            commands.add(actions);
+        }
+    }
+
+    @Benchmark
+    public Changes step() {
+        game.step(commands.get(next++ & 63));
+        return game.drainChanges();
+    }
+}
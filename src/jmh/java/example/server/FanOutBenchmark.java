@@ -0,0 +1,98 @@
+package example.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.domain.configuration.OutboundConfiguration;
+import example.domain.configuration.TickConfiguration;
+import example.domain.game.CaveGenerator;
+import example.domain.game.Player;
+import example.game.Game;
+import example.metrics.Metrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// One tick of a room, from processing the commands until every client has flushed the new state.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"10", "100", "1000"})
+    public int clients;
+
+    @Param({"Json", "Binary"})
+    public String protocol;
+
+    @Param({"false", "true"})
+    public boolean delta;
+
+    // interest radius of every client, -1 for none
+    @Param({"-1", "8"})
+    public int radius;
+
+    private ScheduledExecutorService executor;
+    private Room room;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile CountDownLatch flushed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        final var game = new Game(CaveGenerator.generateUsingDrunkenWalk(200, 200, SEED), SEED);
+        room = new Room("benchmark", game, 0, TickConfiguration.DEFAULT, OutboundConfiguration.DEFAULT, null, new Metrics(), null, null, executor);
+        final Protocol selected = protocol.equals("Json") ? new JsonProtocol(new ObjectMapper()) : room.binaryProtocol();
+
+        for (int i = 0; i < clients; i++) {
+            final var player = new Player.HumanPlayer("Player " + i);
+            game.add(player, game::randomLocation);
+            threads.add(Thread.startVirtualThread(() -> room.handleClientState(new Client(), selected, player, delta, radius < 0 ? null : radius)));
+        }
+    }
+
+    // clients that are not parked yet would miss the state, not measured
+    @Setup(Level.Invocation)
+    public void awaitClients() {
+        while (room.waitingClients() != clients) {
+            Thread.onSpinWait();
+        }
+        flushed = new CountDownLatch(clients);
+    }
+
+    @Benchmark
+    public void tick() throws InterruptedException {
+        room.processCommands();
+        flushed.await();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        threads.forEach(Thread::interrupt);
+        executor.shutdownNow();
+    }
+
+    // discards the state, counts the flush that completes each message
+    private final class Client extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+            flushed.countDown();
+        }
+    }
+}
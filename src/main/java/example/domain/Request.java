@@ -14,7 +14,23 @@ import example.domain.game.Direction;
         @JsonSubTypes.Type(value = Request.Authorize.class, name = "A"),
 })
 public sealed interface Request {
-    record Authorize(String key) implements Request {
+    record Authorize(String key, Options options) implements Request {
+        public Authorize(String key) {
+            this(key, null);
+        }
+
+        // compactCave sends the cave as BitCave instead of SimpleCave, room has to be the configured room of the player,
+        // radius overrides the interest radius of the room, compressCave sends the cave as Response.StateCaveChunk
+        public record Options(Boolean delta, Protocol protocol, Boolean compactCave, String room, Integer radius, Boolean compressCave) {
+            public Options(Boolean delta, Protocol protocol, Boolean compactCave, String room, Integer radius) {
+                this(delta, protocol, compactCave, room, radius, null);
+            }
+
+            public enum Protocol {
+                Json,
+                Binary
+            }
+        }
     }
 
     record Command(Direction direction) implements Request {
@@ -15,7 +15,9 @@ import java.util.Collection;
 )
 @JsonSubTypes({
         @JsonSubTypes.Type(value = Response.StateCave.class, name = "C"),
+        @JsonSubTypes.Type(value = Response.StateCaveChunk.class, name = "Z"),
         @JsonSubTypes.Type(value = Response.StateLocations.class, name = "L"),
+        @JsonSubTypes.Type(value = Response.StateDelta.class, name = "D"),
         @JsonSubTypes.Type(value = Response.Authorized.class, name = "A"),
         @JsonSubTypes.Type(value = Response.Unauthorized.class, name = "U"),
 })
@@ -23,6 +25,10 @@ public sealed interface Response {
     record StateCave(Cave cave) implements Response {
     }
 
+    // the cells of BitCave deflated and split in chunks numbered from 0 until chunks, together they are one cave
+    record StateCaveChunk(int rows, int columns, int chunk, int chunks, byte[] data) implements Response {
+    }
+
     record StateLocations(Collection<ItemLocation> itemLocations, Collection<PlayerLocation> playerLocations, Integer health, Integer gold) implements Response {
         public record ItemLocation(Item entity, Location location) {
         }
@@ -31,6 +37,9 @@ public sealed interface Response {
         }
     }
 
+    record StateDelta(Collection<StateLocations.ItemLocation> itemsAdded, Collection<Item> itemsRemoved, Collection<StateLocations.PlayerLocation> playersMoved, Integer health, Integer gold) implements Response {
+    }
+
     record Authorized(Player.HumanPlayer humanPlayer) implements Response {
     }
 
@@ -2,5 +2,10 @@ package example.domain.configuration;
 
 import java.util.Collection;
 
-public record Config(Collection<PlayerConfiguration> known) {
-}
\ No newline at end of file
+// without rooms the server hosts a single room named "default", journal is the directory every room journals its ticks to
+public record Config(Collection<PlayerConfiguration> known, TickConfiguration tick, Collection<RoomConfiguration> rooms, OutboundConfiguration outbound,
+                     MetricsConfiguration metrics, String journal, SnapshotConfiguration snapshot) {
+    public Config(Collection<PlayerConfiguration> known) {
+        this(known, null, null, null, null, null, null);
+    }
+}
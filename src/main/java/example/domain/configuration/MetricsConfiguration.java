@@ -0,0 +1,6 @@
+package example.domain.configuration;
+
+// port of the HTTP endpoint on the loopback interface, none without it, jmx registers the metrics MBean unless false
+public record MetricsConfiguration(Integer port, Boolean jmx) {
+    public static final MetricsConfiguration DEFAULT = new MetricsConfiguration(null, true);
+}
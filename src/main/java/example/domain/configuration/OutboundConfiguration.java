@@ -0,0 +1,15 @@
+package example.domain.configuration;
+
+// capacity is the number of states queued for a client before its slow consumer policy applies
+public record OutboundConfiguration(Integer capacity, SlowConsumer slowConsumer) {
+    public static final OutboundConfiguration DEFAULT = new OutboundConfiguration(4, SlowConsumer.Coalesce);
+
+    public enum SlowConsumer {
+        // replace everything queued with the latest state
+        Coalesce,
+        // skip the latest state
+        Drop,
+        // close the connection
+        Disconnect
+    }
+}
@@ -3,5 +3,9 @@ package example.domain.configuration;
 import example.domain.Request;
 import example.domain.game.Player;
 
-public record PlayerConfiguration(Request.Authorize authorize, Player.HumanPlayer player) {
+// without room the player is placed in the first room
+public record PlayerConfiguration(Request.Authorize authorize, Player.HumanPlayer player, String room) {
+    public PlayerConfiguration(Request.Authorize authorize, Player.HumanPlayer player) {
+        this(authorize, player, null);
+    }
 }
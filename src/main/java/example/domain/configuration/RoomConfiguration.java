@@ -0,0 +1,12 @@
+package example.domain.configuration;
+
+// parallelStep steps the game of the room in row bands on the common fork join pool, radius limits the state sent
+// to each client to what is that many rows and columns around its player, seed fixes the randomness of the game,
+// dragons is the number of dragons placed in the cave, of every size in turn, only caves of at most 2^24 cells can
+// have dragons
+public record RoomConfiguration(String name, Integer rows, Integer columns, TickConfiguration tick, Boolean parallelStep, Integer radius, Long seed,
+                                Integer dragons) {
+    public RoomConfiguration(String name, Integer rows, Integer columns, TickConfiguration tick) {
+        this(name, rows, columns, tick, null, null, null, null);
+    }
+}
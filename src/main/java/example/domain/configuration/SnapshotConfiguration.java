@@ -0,0 +1,6 @@
+package example.domain.configuration;
+
+// every room is snapshotted to <directory>/<room>.snapshot every interval ticks and restored from it on start
+public record SnapshotConfiguration(String directory, Integer interval) {
+    public static final int DEFAULT_INTERVAL = 60;
+}
@@ -0,0 +1,11 @@
+package example.domain.configuration;
+
+public record TickConfiguration(Integer ticksPerSecond, Overrun overrun) {
+    public static final TickConfiguration DEFAULT = new TickConfiguration(1, Overrun.Skip);
+
+    // what to do with deadlines already missed when a tick takes longer than its budget
+    public enum Overrun {
+        CatchUp,
+        Skip
+    }
+}
@@ -0,0 +1,99 @@
+package example.domain.game;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// One bit per cell, every row starts at a new long so rows can be processed a word at a time.
+// Serialized as rows, columns and cells, the rocks packed row by row, least significant bit first, in base64.
+public final class BitCave implements Cave {
+    private final int rows;
+    private final int columns;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    public BitCave(int rows, int columns) {
+        this(rows, columns, new long[rows * wordsPerRow(columns)]);
+    }
+
+    // takes ownership of words, laid out as described by wordsPerRow
+    BitCave(int rows, int columns, long[] words) {
+        this.rows = rows;
+        this.columns = columns;
+        this.wordsPerRow = wordsPerRow(columns);
+        this.words = words;
+    }
+
+    public static BitCave of(Cave cave) {
+        if (cave instanceof BitCave bitCave) {
+            return bitCave;
+        }
+
+        final var bitCave = new BitCave(cave.rows(), cave.columns());
+        for (int row = 0; row < cave.rows(); row++) {
+            for (int column = 0; column < cave.columns(); column++) {
+                if (cave.rock(row, column)) {
+                    bitCave.words[row * bitCave.wordsPerRow + (column >>> 6)] |= 1L << column;
+                }
+            }
+        }
+        return bitCave;
+    }
+
+    static int wordsPerRow(int columns) {
+        return (columns + 63) >>> 6;
+    }
+
+    @JsonCreator
+    public static BitCave fromBytes(@JsonProperty("rows") int rows, @JsonProperty("columns") int columns, @JsonProperty("cells") byte[] cells) {
+        final var expected = ((long) rows * columns + 7) >>> 3;
+        if (rows < 0 || columns < 0 || cells == null || cells.length != expected) {
+            throw new IllegalArgumentException("A cave of " + rows + " rows and " + columns + " columns needs " + expected
+                    + " bytes of cells, got " + (cells == null ? "none" : cells.length));
+        }
+        final var cave = new BitCave(rows, columns);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                final var index = (long) row * columns + column;
+                if ((cells[(int) (index >>> 3)] & (1 << (index & 7))) != 0) {
+                    cave.words[row * cave.wordsPerRow + (column >>> 6)] |= 1L << column;
+                }
+            }
+        }
+        return cave;
+    }
+
+    @JsonProperty("cells")
+    public byte[] toBytes() {
+        final var cells = new byte[(int) (((long) rows * columns + 7) >>> 3)];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                if (rock(row, column)) {
+                    final var index = (long) row * columns + column;
+                    cells[(int) (index >>> 3)] |= (byte) (1 << (index & 7));
+                }
+            }
+        }
+        return cells;
+    }
+
+    @Override
+    public boolean rock(int row, int column) {
+        return (words[row * wordsPerRow + (column >>> 6)] >>> column & 1L) != 0;
+    }
+
+    @Override
+    @JsonProperty
+    public int rows() {
+        return rows;
+    }
+
+    @Override
+    @JsonProperty
+    public int columns() {
+        return columns;
+    }
+
+    long[] words() {
+        return words;
+    }
+}
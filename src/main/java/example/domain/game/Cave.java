@@ -10,6 +10,7 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 )
 @JsonSubTypes({
         @JsonSubTypes.Type(value = SimpleCave.class, name = "S"),
+        @JsonSubTypes.Type(value = BitCave.class, name = "B"),
 })
 public interface Cave {
     boolean rock(int row, int column);
@@ -13,7 +13,8 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
         @JsonSubTypes.Type(value = Player.Dragon.class, name = "D"),
 })
 public sealed interface Player {
-    record Dragon(Dragon.Size size) implements Player {
+    // dragons are told apart by their id
+    record Dragon(int id, Dragon.Size size) implements Player {
         public enum Size {
             Small,
             Medium,
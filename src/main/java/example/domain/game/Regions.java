@@ -0,0 +1,266 @@
+package example.domain.game;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Connected regions of free cells of bit packed rows, labelled as runs of free cells joined by union find. The runs
+// of every band of rows are found and joined in parallel, the joins across bands follow one band boundary at a time.
+// Runs always join the lower index, so the root of a region is its first run in row major order.
+final class Regions {
+    private static final int BAND_ROWS = 256;
+    // regions smaller than this are filled instead of tunnelled to
+    static final int MINIMUM_SIZE = 16;
+
+    private final long[] words;
+    private final int rows;
+    private final int wordsPerRow;
+    // clears the bits past the last column
+    private final long lastWord;
+    // free cells [starts[run], ends[run]) of row row for the runs rowFirst[row] until rowFirst[row + 1]
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] rowFirst;
+    private final int[] parent;
+
+    private Regions(long[] words, int rows, int columns) {
+        this.words = words;
+        this.rows = rows;
+        this.wordsPerRow = BitCave.wordsPerRow(columns);
+        this.lastWord = (columns & 63) == 0 ? -1L : (1L << columns) - 1;
+
+        final var bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+        final var found = IntStream.range(0, bands).parallel().mapToObj(this::runs).toArray(Runs[]::new);
+        final var total = Arrays.stream(found).mapToInt(runs -> runs.count).sum();
+        this.starts = new int[total];
+        this.ends = new int[total];
+        this.rowFirst = new int[rows + 1];
+        var offset = 0;
+        for (int band = 0; band < bands; band++) {
+            final var runs = found[band];
+            System.arraycopy(runs.starts, 0, starts, offset, runs.count);
+            System.arraycopy(runs.ends, 0, ends, offset, runs.count);
+            for (int row = 0; row < runs.rowFirst.length; row++) {
+                rowFirst[band * BAND_ROWS + row] = offset + runs.rowFirst[row];
+            }
+            offset += runs.count;
+        }
+        rowFirst[rows] = total;
+
+        this.parent = new int[total];
+        Arrays.setAll(parent, run -> run);
+        IntStream.range(0, bands).parallel().forEach(band -> {
+            for (int row = band * BAND_ROWS + 1; row < Math.min(rows, (band + 1) * BAND_ROWS); row++) {
+                join(row);
+            }
+        });
+        for (int band = 1; band < bands; band++) {
+            join(band * BAND_ROWS);
+        }
+        flatten();
+    }
+
+    // Keeps only the largest region. Every other region at least MINIMUM_SIZE cells large gets a tunnel straight up
+    // from its first run to the next region above it, or straight down from its last run if there is none above.
+    // Regions that still do not reach the largest one through their tunnels are filled together with the small ones.
+    static void connect(long[] words, int rows, int columns) {
+        final var regions = new Regions(words, rows, columns);
+        final var count = regions.starts.length;
+        if (count == 0) {
+            return;
+        }
+
+        final var sizes = new int[count];
+        final var last = new int[count];
+        for (int run = 0; run < count; run++) {
+            sizes[regions.parent[run]] += regions.ends[run] - regions.starts[run];
+            last[regions.parent[run]] = run;
+        }
+        var largest = 0;
+        for (int run = 1; run < count; run++) {
+            if (sizes[run] > sizes[largest]) {
+                largest = run;
+            }
+        }
+
+        // the region, column, first and last row of every tunnel, dug once it is known which regions are kept
+        final var region = regions.parent.clone();
+        var tunnels = new int[64];
+        var tunnelCount = 0;
+        for (int root = 0; root < count; root++) {
+            if (region[root] != root || root == largest || sizes[root] < MINIMUM_SIZE) {
+                continue;
+            }
+
+            var column = regions.starts[root];
+            var target = -1;
+            var row = regions.row(root) - 1;
+            while (row > 0 && (target = regions.find(row, column, region, sizes)) < 0) {
+                row--;
+            }
+            var first = row + 1;
+            var end = regions.row(root) - 1;
+            if (target < 0) {
+                column = regions.starts[last[root]];
+                row = regions.row(last[root]) + 1;
+                while (row < rows - 1 && (target = regions.find(row, column, region, sizes)) < 0) {
+                    row++;
+                }
+                first = regions.row(last[root]) + 1;
+                end = row - 1;
+            }
+            if (target < 0) {
+                continue;
+            }
+
+            regions.union(root, region[target]);
+            if (tunnelCount + 4 > tunnels.length) {
+                tunnels = Arrays.copyOf(tunnels, tunnels.length * 2);
+            }
+            tunnels[tunnelCount++] = root;
+            tunnels[tunnelCount++] = column;
+            tunnels[tunnelCount++] = first;
+            tunnels[tunnelCount++] = end;
+        }
+
+        regions.flatten();
+        final var kept = regions.parent[largest];
+        final var bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+        IntStream.range(0, bands).parallel().forEach(band -> {
+            for (int row = band * BAND_ROWS; row < Math.min(rows, (band + 1) * BAND_ROWS); row++) {
+                for (int run = regions.rowFirst[row]; run < regions.rowFirst[row + 1]; run++) {
+                    if (regions.parent[run] != kept) {
+                        regions.fill(row, regions.starts[run], regions.ends[run]);
+                    }
+                }
+            }
+        });
+        for (int tunnel = 0; tunnel < tunnelCount; tunnel += 4) {
+            if (regions.parent[tunnels[tunnel]] != kept) {
+                continue;
+            }
+            final var column = tunnels[tunnel + 1];
+            for (int row = tunnels[tunnel + 2]; row <= tunnels[tunnel + 3]; row++) {
+                words[row * regions.wordsPerRow + (column >>> 6)] &= ~(1L << column);
+            }
+        }
+    }
+
+    private record Runs(int[] starts, int[] ends, int[] rowFirst, int count) {
+    }
+
+    // the runs of free cells of a band, every row ends in rock
+    private Runs runs(int band) {
+        final var firstRow = band * BAND_ROWS;
+        final var rowFirst = new int[Math.min(rows, firstRow + BAND_ROWS) - firstRow];
+        var starts = new int[1024];
+        var ends = new int[1024];
+        var count = 0;
+        for (int row = firstRow; row < firstRow + rowFirst.length; row++) {
+            rowFirst[row - firstRow] = count;
+            var ended = count;
+            var carry = 0L;
+            for (int word = 0; word < wordsPerRow; word++) {
+                final var free = ~words[row * wordsPerRow + word] & (word == wordsPerRow - 1 ? lastWord : -1L);
+                final var shifted = free << 1 | carry;
+                carry = free >>> 63;
+                var runStarts = free & ~shifted;
+                var runEnds = ~free & shifted;
+                final var needed = count + Long.bitCount(runStarts);
+                if (needed > starts.length) {
+                    starts = Arrays.copyOf(starts, Math.max(needed, starts.length * 2));
+                    ends = Arrays.copyOf(ends, starts.length);
+                }
+                for (; runStarts != 0; runStarts &= runStarts - 1) {
+                    starts[count++] = word << 6 | Long.numberOfTrailingZeros(runStarts);
+                }
+                for (; runEnds != 0; runEnds &= runEnds - 1) {
+                    ends[ended++] = word << 6 | Long.numberOfTrailingZeros(runEnds);
+                }
+            }
+        }
+        return new Runs(starts, ends, rowFirst, count);
+    }
+
+    // joins the runs of row with the overlapping runs of the row above
+    private void join(int row) {
+        var above = rowFirst[row - 1];
+        var below = rowFirst[row];
+        while (above < rowFirst[row] && below < rowFirst[row + 1]) {
+            if (starts[above] < ends[below] && starts[below] < ends[above]) {
+                union(above, below);
+            }
+            if (ends[above] < ends[below]) {
+                above++;
+            } else {
+                below++;
+            }
+        }
+    }
+
+    // a parent always comes before its run, so one pass in order points every run at its root
+    private void flatten() {
+        for (int run = 0; run < parent.length; run++) {
+            parent[run] = parent[parent[run]];
+        }
+    }
+
+    private int root(int run) {
+        while (parent[run] != run) {
+            parent[run] = parent[parent[run]];
+            run = parent[run];
+        }
+        return run;
+    }
+
+    private void union(int first, int second) {
+        final var a = root(first);
+        final var b = root(second);
+        if (a < b) {
+            parent[b] = a;
+        } else if (b < a) {
+            parent[a] = b;
+        }
+    }
+
+    private int row(int run) {
+        final var found = Arrays.binarySearch(rowFirst, run);
+        if (found >= 0) {
+            // rows without runs share their first run with the next row
+            var row = found;
+            while (rowFirst[row + 1] == run) {
+                row++;
+            }
+            return row;
+        }
+        return -found - 2;
+    }
+
+    // the run with the cell, -1 if the cell is rock
+    private int find(int row, int column) {
+        var low = rowFirst[row];
+        var high = rowFirst[row + 1] - 1;
+        while (low <= high) {
+            final var middle = (low + high) >>> 1;
+            if (ends[middle] <= column) {
+                low = middle + 1;
+            } else if (starts[middle] > column) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    // the run with the cell if its region is not filled for being small, -1 otherwise
+    private int find(int row, int column, int[] region, int[] sizes) {
+        final var run = find(row, column);
+        return run < 0 || sizes[region[run]] < MINIMUM_SIZE ? -1 : run;
+    }
+
+    private void fill(int row, int start, int end) {
+        for (int column = start; column < end; column++) {
+            words[row * wordsPerRow + (column >>> 6)] |= 1L << column;
+        }
+    }
+}
@@ -26,6 +26,20 @@ public final class SimpleCave implements Cave {
         this.rocks = Arrays.copyOf(rocks, rocks.length);
     }
 
+    public static SimpleCave of(Cave cave) {
+        if (cave instanceof SimpleCave simpleCave) {
+            return simpleCave;
+        }
+
+        final var rocks = new boolean[cave.rows() * cave.columns()];
+        for (int row = 0; row < cave.rows(); row++) {
+            for (int column = 0; column < cave.columns(); column++) {
+                rocks[row * cave.columns() + column] = cave.rock(row, column);
+            }
+        }
+        return new SimpleCave(rocks, cave.rows(), cave.columns());
+    }
+
     @Override
     public boolean rock(int row, int column) {
         return this.rocks[row*this.columns + column];
@@ -0,0 +1,11 @@
+package example.game;
+
+import example.domain.game.Item;
+import example.domain.game.Location;
+import example.domain.game.Player;
+
+import java.util.Map;
+import java.util.Set;
+
+public record Changes(Map<Item, Location> itemsAdded, Set<Item> itemsRemoved, Map<Player, Location> playersMoved) {
+}
@@ -0,0 +1,166 @@
+package example.game;
+
+import example.domain.game.Cave;
+import example.domain.game.Direction;
+
+import java.util.Arrays;
+
+// Breadth first distances over the free cells of a cave to the nearest of a set of sources, up to a limit.
+// A refresh is built next to the distances in use and spread a budget of cells at a time, possibly over several
+// calls, the distances switch over once it is complete. Cells are stamped with the generation of the refresh that
+// reached them, cells with another stamp are unreached, so a refresh only touches the cells within the limit.
+// A stamp and a distance share an int, when the stamps run out they start over from arrays cleared of the old ones.
+// The free cells of the cave are copied into bits with a border of rock around them, so neighbours never need
+// bounds checks.
+final class DistanceField {
+    static final int UNREACHED = Integer.MAX_VALUE;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int MAXIMUM_GENERATION = 0xFFFF;
+
+    private final int width;
+    private final int limit;
+    private final long[] free;
+    private final int[] offsets;
+    // generation in the upper half, distance in the lower one
+    private int[] marks;
+    private int generation = 1;
+    private int[] building;
+    private int buildingGeneration = 1;
+    // marks still has stamps from before the generations started over
+    private boolean stale;
+    private boolean refreshing;
+    private int[] queue = new int[64];
+    private int head;
+    private int tail;
+
+    DistanceField(Cave cave, int limit) {
+        if (limit > 0xFFFF) {
+            throw new IllegalArgumentException("Limit " + limit + " does not fit in 16 bits");
+        }
+
+        this.width = cave.columns() + 2;
+        this.limit = limit;
+        final var cells = (cave.rows() + 2) * width;
+        this.free = new long[(cells + 63) >>> 6];
+        for (int row = 0; row < cave.rows(); row++) {
+            for (int column = 0; column < cave.columns(); column++) {
+                if (!cave.rock(row, column)) {
+                    final var cell = cell(row, column);
+                    free[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+        this.marks = new int[cells];
+        this.building = new int[cells];
+        this.offsets = new int[DIRECTIONS.length];
+        for (final var direction : DIRECTIONS) {
+            offsets[direction.ordinal()] = switch (direction) {
+                case Up -> -width;
+                case Down -> width;
+                case Left -> -1;
+                case Right -> 1;
+            };
+        }
+    }
+
+    // a refresh has been started and is not complete yet
+    boolean refreshing() {
+        return refreshing;
+    }
+
+    // starts a refresh, dropping the one in progress, followed by its sources and spread
+    void clear() {
+        buildingGeneration = Math.max(generation, buildingGeneration) + 1;
+        if (buildingGeneration > MAXIMUM_GENERATION) {
+            Arrays.fill(building, 0);
+            buildingGeneration = 1;
+            stale = true;
+        }
+        refreshing = true;
+        head = 0;
+        tail = 0;
+    }
+
+    void source(int row, int column) {
+        final var cell = cell(row, column);
+        if (building[cell] >>> 16 != buildingGeneration) {
+            building[cell] = buildingGeneration << 16;
+            enqueue(cell);
+        }
+    }
+
+    // continues the refresh for at most budget cells, true once it is complete and in use
+    boolean spread(int budget) {
+        if (!refreshing) {
+            return false;
+        }
+
+        final var building = this.building;
+        final var free = this.free;
+        final var generation = buildingGeneration;
+        final var stamp = generation << 16;
+        for (var spent = 0; head < tail && spent < budget; spent++) {
+            final var cell = queue[head++];
+            final var next = (building[cell] & 0xFFFF) + 1;
+            if (next > limit) {
+                continue;
+            }
+
+            for (final var offset : offsets) {
+                final var neighbour = cell + offset;
+                if ((free[neighbour >>> 6] & 1L << neighbour) != 0 && building[neighbour] >>> 16 != generation) {
+                    building[neighbour] = stamp | next;
+                    enqueue(neighbour);
+                }
+            }
+        }
+        if (head < tail) {
+            return false;
+        }
+
+        if (stale) {
+            Arrays.fill(marks, 0);
+            stale = false;
+        }
+        this.building = marks;
+        this.marks = building;
+        this.generation = generation;
+        refreshing = false;
+        return true;
+    }
+
+    int distance(int row, int column) {
+        return distance(cell(row, column));
+    }
+
+    // the first direction closer to the nearest source, null at a source or out of reach
+    Direction downhill(int row, int column) {
+        final var cell = cell(row, column);
+        var best = distance(cell);
+        Direction downhill = null;
+        for (final var direction : DIRECTIONS) {
+            final var distance = distance(cell + offsets[direction.ordinal()]);
+            if (distance < best) {
+                best = distance;
+                downhill = direction;
+            }
+        }
+        return downhill;
+    }
+
+    private int cell(int row, int column) {
+        return (row + 1) * width + column + 1;
+    }
+
+    private int distance(int cell) {
+        final var mark = marks[cell];
+        return mark >>> 16 == generation ? mark & 0xFFFF : UNREACHED;
+    }
+
+    private void enqueue(int cell) {
+        if (tail == queue.length) {
+            queue = Arrays.copyOf(queue, tail * 2);
+        }
+        queue[tail++] = cell;
+    }
+}
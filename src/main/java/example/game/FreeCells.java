@@ -0,0 +1,75 @@
+package example.game;
+
+import example.domain.game.Cave;
+import example.domain.game.Location;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// The cells without rock, item or player, in no particular order so that a random one is drawn in constant time.
+// A cell leaves by the last cell moving into its place, so the order depends on the order of the changes.
+final class FreeCells {
+    private static final int ROCK = -2;
+    private static final int TAKEN = -1;
+
+    private final int columns;
+    // the free cells are the first size ones
+    private final int[] cells;
+    // index of every cell in cells, TAKEN or ROCK if it is not there
+    private final int[] positions;
+    private int size;
+
+    FreeCells(Cave cave) {
+        this.columns = cave.columns();
+        this.positions = new int[cave.rows() * columns];
+        Arrays.fill(positions, ROCK);
+        var size = 0;
+        for (int row = 0; row < cave.rows(); row++) {
+            for (int column = 0; column < columns; column++) {
+                if (!cave.rock(row, column)) {
+                    positions[row * columns + column] = size++;
+                }
+            }
+        }
+        this.cells = new int[size];
+        for (int cell = 0; cell < positions.length; cell++) {
+            if (positions[cell] >= 0) {
+                cells[positions[cell]] = cell;
+            }
+        }
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // rock stays out
+    void add(int row, int column) {
+        final var cell = row * columns + column;
+        if (positions[cell] == TAKEN) {
+            positions[cell] = size;
+            cells[size++] = cell;
+        }
+    }
+
+    void remove(int row, int column) {
+        final var cell = row * columns + column;
+        final var position = positions[cell];
+        if (position >= 0) {
+            final var last = cells[--size];
+            cells[position] = last;
+            positions[last] = position;
+            positions[cell] = TAKEN;
+        }
+    }
+
+    Location random(Random random) {
+        if (size == 0) {
+            throw new IllegalStateException("No free cell left in the cave");
+        }
+
+        final var cell = cells[random.nextInt(size)];
+        return new Location(cell / columns, cell % columns);
+    }
+}
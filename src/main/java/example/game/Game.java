@@ -2,33 +2,89 @@ package example.game;
 
 import example.domain.game.*;
 
+import java.io.Serial;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-public class Game {
-    private static final Random rg = new Random();
+public final class Game {
+    // below this many players the parallel step is not worth the hand-off and runs sequentially
+    static final int PARALLEL_THRESHOLD = 1024;
     private static final int NUM_GOLD = 3;
     private static final int NUM_HEALTH = 3;
     private static final int MINIMUM_HIT = 40;
+    // random cells tried for a free one in caves without an index of free cells
+    static final int SPARSE_ATTEMPTS = 1 << 16;
+    // dragons chase players they are at most this far from, otherwise they head for gold within their range and guard
+    // it from this close, dragons further away from gold stay where they are
+    static final int DRAGON_SIGHT = 24;
+    static final int DRAGON_RANGE = 4 * DRAGON_SIGHT;
+    static final int DRAGON_GUARD = 2;
+    // cells every distance field spreads to per step at most, so dragons cost the same however many there are and
+    // refreshes of large caves take several steps, meanwhile the dragons follow the previous distances
+    static final int DRAGON_BUDGET = 1 << 16;
     private final Map<Item, Location> itemLocation;
+    private final Players players;
     private final Map<Player, Location> playerLocation;
     private final Map<Player, Integer> playerHealth;
     private final Map<Player, Integer> playerGold;
+    private final Map<Item, Location> itemsAdded = new HashMap<>();
+    private final Set<Item> itemsRemoved = new HashSet<>();
     private final Cave cave;
+    private final Occupancy occupancy;
+    // only caves indexed by arrays have one, it is brought up to date with the moves at the end of their phase
+    private final FreeCells freeCells;
+    private final Random random;
     private int step;
+    private int golds;
+    private int healths;
+
+    // shared by all dragons, indexed like the dense occupancy, so only caves of at most DENSE_LIMIT cells have dragons
+    private int dragons;
+    private DistanceField towardsHumans;
+    private DistanceField towardsGold;
+    private boolean humansMoved;
+    // living humans the field towards them was last refreshed for
+    private int humanSources;
+    private boolean goldMoved;
+
+    // scratch buffers indexed by player slot, reused between steps
+    private Direction[] command = new Direction[0];
+    private int[] commanded = new int[0];
+    private int[] fought = new int[0];
+    private int[] group = new int[0];
+    private boolean[] moved = new boolean[0];
+    private int[] fromRow = new int[0];
+    private int[] fromColumn = new int[0];
+    private int[] shifted = new int[0];
+    private int shiftedCount;
+    private int[] movedSlots = new int[0];
+    private int movedCount;
+
+    // parallel step, null when steps run sequentially
+    private ForkJoinPool pool;
+    private Band[] bands;
+    private int bandRows;
+    private int[] bandStart = new int[0];
+    private int[] order = new int[0];
+    private int[] targetRow = new int[0];
+    private int[] targetColumn = new int[0];
 
     public Map<Player, Integer> playerHealth() {
-        return Collections.unmodifiableMap(playerHealth);
+        return playerHealth;
     }
 
     public Map<Player, Integer> playerGold() {
-        return Collections.unmodifiableMap(playerGold);
+        return playerGold;
     }
 
     public Map<Player, Location> playerLocation() {
-        return Collections.unmodifiableMap(playerLocation);
+        return playerLocation;
     }
 
     public Map<Item, Location> itemLocation() {
@@ -39,15 +95,80 @@ public class Game {
         return cave;
     }
 
+    // changes since the previous call, an item added and removed in between is not reported at all
+    public Changes drainChanges() {
+        final var playersMoved = new HashMap<Player, Location>();
+        for (int i = 0; i < movedCount; i++) {
+            final var slot = movedSlots[i];
+            playersMoved.put(players.player(slot), new Location(players.row(slot), players.column(slot)));
+            moved[slot] = false;
+        }
+        movedCount = 0;
+
+        final var changes = new Changes(Map.copyOf(itemsAdded), Set.copyOf(itemsRemoved), Map.copyOf(playersMoved));
+        itemsAdded.clear();
+        itemsRemoved.clear();
+        return changes;
+    }
+
     public Game(Cave cave) {
+        this(cave, new Random());
+    }
+
+    public Game(Cave cave, long seed) {
+        this(cave, new Random(seed));
+    }
+
+    // every random decision of the game is drawn from random, in the order of the calls made on the game
+    public Game(Cave cave, Random random) {
         this.cave = cave;
-        this.playerLocation = new HashMap<>();
+        this.random = random;
+        this.occupancy = Occupancy.of(cave);
+        this.freeCells = occupancy instanceof Occupancy.Dense ? new FreeCells(cave) : null;
         this.itemLocation = new HashMap<>();
-        this.playerHealth = new HashMap<>();
-        this.playerGold = new HashMap<>();
+        this.players = new Players();
+        this.playerLocation = players.locationView();
+        this.playerHealth = players.healthView();
+        this.playerGold = players.goldView();
+    }
+
+    // continues from a state taken by state(), the players and items are reported as added by the next drainChanges
+    public Game(Cave cave, GameState state, Random random) {
+        this(cave, random);
+        this.step = state.step();
+        state.items().forEach((item, location) -> {
+            requireRestorable(item, location.row(), location.column());
+            if (!occupancy.free(location.row(), location.column())) {
+                throw new IllegalArgumentException("Cannot restore " + item + " at " + location + ", the cell is taken");
+            }
+            add(item, () -> location);
+        });
+        for (int i = 0; i < state.players().length; i++) {
+            requireDragonsMove(state.players()[i]);
+            requireRestorable(state.players()[i], state.rows()[i], state.columns()[i]);
+            final var slot = players.add(state.players()[i], state.rows()[i], state.columns()[i], state.health()[i], state.gold()[i]);
+            added(slot);
+            occupancy.enter(state.rows()[i], state.columns()[i], slot);
+            taken(state.rows()[i], state.columns()[i]);
+            moved(slot);
+        }
+    }
+
+    public GameState state() {
+        final var size = players.size();
+        final var state = new GameState(step, new Player[size], new int[size], new int[size], new int[size], new int[size], Map.copyOf(itemLocation));
+        for (int slot = 0; slot < size; slot++) {
+            state.players()[slot] = players.player(slot);
+            state.rows()[slot] = players.row(slot);
+            state.columns()[slot] = players.column(slot);
+            state.health()[slot] = players.health(slot);
+            state.gold()[slot] = players.gold(slot);
+        }
+        return state;
     }
 
-    public void render() {
+    // the cave with a letter for every player and item, a line per row
+    public String render() {
         final var tbl = new char[cave.columns() * cave.rows()];
         for (int row = 0; row < cave.rows(); row++) {
             for (int column = 0; column < cave.columns(); column++) {
@@ -59,9 +180,8 @@ public class Game {
             }
         }
 
-        for (final var entry : playerLocation.entrySet()) {
-            final var location = entry.getValue();
-            tbl[location.row() * cave.columns() + location.column()] = switch (entry.getKey()) {
+        for (int slot = 0; slot < players.size(); slot++) {
+            tbl[players.row(slot) * cave.columns() + players.column(slot)] = switch (players.player(slot)) {
                 case Player.HumanPlayer ignored -> 'P';
                 case Player.Dragon ignored -> 'D';
             };
@@ -75,182 +195,531 @@ public class Game {
             };
         }
 
+        final var rendered = new StringBuilder((cave.columns() + 1) * cave.rows());
         for (int row = 0; row < cave.rows(); row++) {
-            for (int column = 0; column < cave.columns(); column++) {
-                System.out.print(tbl[row * cave.columns() + column]);
-            }
-            System.out.println();
+            rendered.append(tbl, row * cave.columns(), cave.columns()).append('\n');
         }
+        return rendered.toString();
     }
 
     public void add(Item entity, Supplier<Location> generateLocation) {
         for (; ; ) {
             final var location = generateLocation.get();
 
-            if (itemLocation.containsValue(location)) {
-                continue;
-            }
-
-            if (playerLocation.containsValue(location)) {
+            if (!occupancy.free(location.row(), location.column())) {
                 continue;
             }
 
             itemLocation.put(entity, location);
+            occupancy.item(location.row(), location.column(), entity);
+            taken(location.row(), location.column());
+            itemsAdded.put(entity, location);
+            switch (entity) {
+                case Item.Gold ignored -> {
+                    golds++;
+                    goldMoved = true;
+                }
+                case Item.Health ignored -> healths++;
+            }
 
             return;
         }
     }
 
     public void add(Player entity, Supplier<Location> generateLocation) {
+        requireDragonsMove(entity);
         for (; ; ) {
             final var location = generateLocation.get();
 
-            if (itemLocation.containsValue(location)) {
-                continue;
-            }
-
-            if (playerLocation.containsValue(location)) {
+            if (!occupancy.free(location.row(), location.column())) {
                 continue;
             }
 
-            playerLocation.put(entity, location);
-            if (entity instanceof Player.HumanPlayer player) {
-                playerHealth.put(player, 500);
-                playerGold.put(player, 0);
-            }
+            final var health = switch (entity) {
+                case Player.HumanPlayer ignored -> 500;
+                case Player.Dragon(int id, Player.Dragon.Size size) -> switch (size) {
+                    case Small -> 150;
+                    case Medium -> 300;
+                    case Large -> 600;
+                };
+            };
+            final var slot = players.add(entity, location.row(), location.column(), health, 0);
+            added(slot);
+            occupancy.enter(location.row(), location.column(), slot);
+            taken(location.row(), location.column());
+            moved(slot);
 
             return;
         }
     }
 
+    // a uniformly random cell without rock, item or player, throws IllegalStateException if there is none
     public Location randomLocation() {
-        for (; ; ) {
-            final var row = rg.nextInt(cave.rows());
-            final var column = rg.nextInt(cave.columns());
-            if (cave.rock(row, column)) {
-                continue;
+        if (freeCells != null) {
+            return freeCells.random(random);
+        }
+
+        // caves too large to index are too large to fill up
+        for (int attempt = 0; attempt < SPARSE_ATTEMPTS; attempt++) {
+            final var row = random.nextInt(cave.rows());
+            final var column = random.nextInt(cave.columns());
+            if (!cave.rock(row, column) && occupancy.free(row, column)) {
+                return new Location(row, column);
             }
+        }
+        throw new IllegalStateException("No free cell found in " + SPARSE_ATTEMPTS + " attempts");
+    }
+
+    // Splits the cave into row bands stepped on the pool, the outcome is the same as of the sequential step.
+    // Only caves indexed by arrays are stepped in parallel, null switches back to sequential steps.
+    public void parallel(ForkJoinPool pool) {
+        if (pool == null || !(occupancy instanceof Occupancy.Dense)) {
+            this.pool = null;
+            this.bands = null;
+            return;
+        }
 
-            return new Location(row, column);
+        final var count = Math.min(pool.getParallelism() * 4, cave.rows());
+        this.pool = pool;
+        this.bands = new Band[count];
+        this.bandRows = (cave.rows() + count - 1) / count;
+        this.bandStart = new int[count + 1];
+        for (int band = 0; band < count; band++) {
+            bands[band] = new Band();
         }
     }
 
     public void step(Collection<Action> commands) {
         step++;
-        // make sure there is only one command per player
-        final var filtered = commands.stream()
-                .collect(Collectors.groupingBy(Action::player))
-                .entrySet()
-                .stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getFirst()));
-
-        // apply commands to player locations but only with non-zero health
-        final var moved = playerLocation.entrySet().stream()
-                .filter(entry -> !playerHealth.get(entry.getKey()).equals(0))
-                .map(entry -> {
-                    final var action = filtered.get(entry.getKey());
-                    if (action == null) {
-                        return entry;
-                    }
-
-                    final var next = move(entry.getValue(), action);
-                    if (cave.rock(next.row(), next.column())) {
-                        return entry;
-                    }
-
-                    return Map.entry(entry.getKey(), next);
-                })
-                .collect(Collectors.groupingBy(Map.Entry::getValue));
+        // make sure there is only one command per player, the first one wins
+        if (commands instanceof List<Action> list && commands instanceof RandomAccess) {
+            for (int i = 0; i < list.size(); i++) {
+                command(list.get(i));
+            }
+        } else {
+            for (final var action : commands) {
+                command(action);
+            }
+        }
 
-        // fight and collect gems
-        moved.forEach((key, value) -> fight(key, value.stream().map(Map.Entry::getKey).toList()));
+        if (towardsHumans != null) {
+            commandDragons();
+        }
 
-        // update locations
-        moved.forEach((location, entries) -> entries.forEach(entry -> playerLocation.put(entry.getKey(), entry.getValue())));
+        if (pool != null && players.size() >= PARALLEL_THRESHOLD) {
+            stepParallel();
+        } else {
+            stepSequential();
+        }
 
         // generate gold if none
-        if (itemLocation.keySet().stream().noneMatch(item -> item instanceof Item.Gold)) {
+        if (golds == 0) {
             generateGold();
         }
 
         // generate health if none
-        if (itemLocation.keySet().stream().noneMatch(item -> item instanceof Item.Health)) {
+        if (healths == 0) {
             generateHealth();
         }
 
     }
 
-    private void generateHealth() {
-        for (int i = 0; i < NUM_GOLD; i++) {
-            add(new Item.Health(i, ThreadLocalRandom.current().nextInt(100)), this::randomLocation);
+    private void stepSequential() {
+        // apply commands to player locations but only with non-zero health
+        for (int slot = 0; slot < players.size(); slot++) {
+            final var direction = command[slot];
+            command[slot] = null;
+            if (direction == null || players.health(slot) == 0) {
+                continue;
+            }
+
+            final var row = row(players.row(slot), direction);
+            final var column = column(players.column(slot), direction);
+            if (cave.rock(row, column)) {
+                continue;
+            }
+
+            leaving(slot);
+            occupancy.leave(players.row(slot), players.column(slot), slot);
+            occupancy.enter(row, column, slot);
+            players.move(slot, row, column);
+            moved(slot);
+        }
+        refreshFreeCells();
+
+        // fight and collect gems, once per cell with a player with non-zero health
+        for (int slot = 0; slot < players.size(); slot++) {
+            final var item = fight(slot, group);
+            if (item != null) {
+                collected(item);
+            }
         }
     }
 
-    private void generateGold() {
-        for (int i = 0; i < NUM_HEALTH; i++) {
-            add(new Item.Gold(i, ThreadLocalRandom.current().nextInt(100)), this::randomLocation);
+    // Cells are independent of each other, so every band handles the cells in its rows. Moves crossing bands
+    // are split in two: all players leave their cells first, then enter the new ones in the band of the target.
+    private void stepParallel() {
+        for (final var band : bands) {
+            if (band.group.length < group.length) {
+                band.group = new int[group.length];
+            }
+        }
+
+        // apply commands, leaving the current cells
+        partition(slot -> true, slot -> players.row(slot));
+        forEachBand(band -> {
+            final var moving = bands[band];
+            moving.size = 0;
+            for (int i = bandStart[band]; i < bandStart[band + 1]; i++) {
+                final var slot = order[i];
+                final var direction = command[slot];
+                command[slot] = null;
+                if (direction == null || players.health(slot) == 0) {
+                    continue;
+                }
+
+                final var row = row(players.row(slot), direction);
+                final var column = column(players.column(slot), direction);
+                if (cave.rock(row, column)) {
+                    continue;
+                }
+
+                occupancy.leave(players.row(slot), players.column(slot), slot);
+                fromRow[slot] = players.row(slot);
+                fromColumn[slot] = players.column(slot);
+                targetRow[slot] = row;
+                targetColumn[slot] = column;
+                moving.add(slot);
+            }
+        });
+
+        // enter the new cells
+        for (final var band : bands) {
+            for (int i = 0; i < band.size; i++) {
+                moved(band.slots[i]);
+            }
+        }
+        partition(slot -> targetRow[slot] != -1, slot -> targetRow[slot]);
+        forEachBand(band -> {
+            for (int i = bandStart[band]; i < bandStart[band + 1]; i++) {
+                final var slot = order[i];
+                occupancy.enter(targetRow[slot], targetColumn[slot], slot);
+                players.move(slot, targetRow[slot], targetColumn[slot]);
+            }
+        });
+        // in the order of the sequential step, so that both leave the same free cells in the same order
+        for (int slot = 0; slot < players.size(); slot++) {
+            if (targetRow[slot] != -1) {
+                targetRow[slot] = -1;
+                shifted[shiftedCount++] = slot;
+            }
+        }
+        refreshFreeCells();
+
+        // fight and collect gems, the collected items are accounted for afterwards
+        partition(slot -> players.health(slot) != 0, slot -> players.row(slot));
+        forEachBand(band -> {
+            final var collected = bands[band];
+            collected.items.clear();
+            for (int i = bandStart[band]; i < bandStart[band + 1]; i++) {
+                final var item = fight(order[i], collected.group);
+                if (item != null) {
+                    collected.items.add(item);
+                }
+            }
+        });
+        for (final var band : bands) {
+            band.items.forEach(this::collected);
+        }
+    }
+
+    // sorts the selected slots into order by the band of their row, slots stay ascending within a band
+    private void partition(IntPredicate selected, IntUnaryOperator row) {
+        Arrays.fill(bandStart, 0);
+        for (int slot = 0; slot < players.size(); slot++) {
+            if (selected.test(slot)) {
+                bandStart[row.applyAsInt(slot) / bandRows + 1]++;
+            }
+        }
+        for (int band = 0; band < bands.length; band++) {
+            bandStart[band + 1] += bandStart[band];
+        }
+
+        final var next = Arrays.copyOf(bandStart, bands.length);
+        for (int slot = 0; slot < players.size(); slot++) {
+            if (selected.test(slot)) {
+                order[next[row.applyAsInt(slot) / bandRows]++] = slot;
+            }
+        }
+    }
+
+    private void forEachBand(IntConsumer action) {
+        pool.invoke(new BandTask(0, bands.length, action));
+    }
+
+    // Every dragon moves towards the nearest player in sight, or else towards the nearest gold until it guards it.
+    // The fields are shared by all dragons, the one towards players is refreshed when players joined, moved or died
+    // and the one towards gold only when gold appeared or was collected.
+    private void commandDragons() {
+        if (!towardsHumans.refreshing()) {
+            var living = 0;
+            for (int slot = 0; slot < players.size(); slot++) {
+                if (players.human(slot) && players.health(slot) != 0) {
+                    living++;
+                }
+            }
+            if (humansMoved || living != humanSources) {
+                humansMoved = false;
+                humanSources = living;
+                towardsHumans.clear();
+                for (int slot = 0; slot < players.size(); slot++) {
+                    if (players.human(slot) && players.health(slot) != 0) {
+                        towardsHumans.source(players.row(slot), players.column(slot));
+                    }
+                }
+            }
+        }
+        towardsHumans.spread(DRAGON_BUDGET);
+
+        if (goldMoved && !towardsGold.refreshing()) {
+            goldMoved = false;
+            towardsGold.clear();
+            itemLocation.forEach((item, location) -> {
+                if (item instanceof Item.Gold) {
+                    towardsGold.source(location.row(), location.column());
+                }
+            });
+        }
+        towardsGold.spread(DRAGON_BUDGET);
+
+        for (int slot = 0; slot < players.size(); slot++) {
+            if (players.human(slot) || players.health(slot) == 0) {
+                continue;
+            }
+
+            final var row = players.row(slot);
+            final var column = players.column(slot);
+            if (towardsHumans.distance(row, column) != DistanceField.UNREACHED) {
+                command[slot] = towardsHumans.downhill(row, column);
+            } else if (towardsGold.distance(row, column) > DRAGON_GUARD && towardsGold.distance(row, column) != DistanceField.UNREACHED) {
+                command[slot] = towardsGold.downhill(row, column);
+            }
+        }
+    }
+
+    private void added(int slot) {
+        ensureCapacity();
+        if (!players.human(slot) && dragons++ == 0) {
+            towardsHumans = new DistanceField(cave, DRAGON_SIGHT);
+            towardsGold = new DistanceField(cave, DRAGON_RANGE);
+            goldMoved = true;
+        }
+    }
+
+    // a state may come from a corrupt snapshot
+    private void requireRestorable(Object entity, int row, int column) {
+        if (row < 0 || row >= cave.rows() || column < 0 || column >= cave.columns() || cave.rock(row, column)) {
+            throw new IllegalArgumentException("Cannot restore " + entity + " at row " + row + ", column " + column + ", the cell is rock or outside the cave");
+        }
+    }
+
+    // the distance fields of a cave too large for the dense occupancy would take gigabytes
+    private void requireDragonsMove(Player player) {
+        if (player instanceof Player.Dragon && !(occupancy instanceof Occupancy.Dense)) {
+            throw new IllegalArgumentException("Dragons need a cave of at most " + Occupancy.DENSE_LIMIT + " cells, not " + (long) cave.rows() * cave.columns());
         }
     }
 
-    private void fight(Location location, List<Player> players) {
-        if (players.isEmpty()) {
+    private void command(Action action) {
+        final var slot = players.slot(action.player());
+        if (slot == -1 || commanded[slot] == step) {
             return;
         }
 
-        // "fight" - health of all players is reduced by half of health of the weakest one
-        if (players.size() > 1) {
-            final var optionalMinimumPlayer = players.stream().min((o1, o2) -> Integer.compare(playerHealth.get(o1), playerHealth.get(o2)));
-            final var optionalMinimumHealth = optionalMinimumPlayer.map(playerHealth::get);
-            final var optionalHit = optionalMinimumHealth.map(m -> Math.max(m / 2, MINIMUM_HIT));
-            optionalHit.ifPresent(hit -> players.forEach(player -> playerHealth.compute(player, (ignored, health) -> Math.max(health - hit, 0))));
-//            optionalMinimumPlayer.filter(player -> playerHealth.get(player).equals(0)).ifPresent(player );
-            final var dead = players.stream()
-                    .filter(player -> playerHealth.get(player).equals(0))
-                    .toList();
+        commanded[slot] = step;
+        command[slot] = action.direction();
+    }
+
+    // the cell can no longer be drawn as a free one
+    private void taken(int row, int column) {
+        if (freeCells != null) {
+            freeCells.remove(row, column);
+        }
+    }
 
-            final var loot = dead.stream()
-                    .mapToInt(player -> playerGold.get(player)).sum();
+    // the slot is about to move away from its cell, in the sequential step
+    private void leaving(int slot) {
+        fromRow[slot] = players.row(slot);
+        fromColumn[slot] = players.column(slot);
+        shifted[shiftedCount++] = slot;
+    }
 
+    // the cells the shifted slots came from and went to enter or leave the free cells as they are after all moves
+    private void refreshFreeCells() {
+        if (freeCells != null) {
+            for (int i = 0; i < shiftedCount; i++) {
+                final var slot = shifted[i];
+                refreshFreeCell(fromRow[slot], fromColumn[slot]);
+                refreshFreeCell(players.row(slot), players.column(slot));
+            }
+        }
+        shiftedCount = 0;
+    }
 
-            final var optionalMaximum = players.stream().max((o1, o2) -> Integer.compare(playerHealth.get(o1), playerHealth.get(o2)));
+    private void refreshFreeCell(int row, int column) {
+        if (occupancy.free(row, column)) {
+            freeCells.add(row, column);
+        } else {
+            freeCells.remove(row, column);
+        }
+    }
 
-            optionalMaximum.ifPresent(maximum -> playerGold.computeIfPresent(maximum, (ignored, gold) -> gold + loot / 2));
+    private void moved(int slot) {
+        if (players.human(slot)) {
+            humansMoved = true;
+        }
+        if (!moved[slot]) {
+            moved[slot] = true;
+            movedSlots[movedCount++] = slot;
         }
+    }
 
-        final var optionalMaximum = players.stream().max((o1, o2) -> Integer.compare(playerHealth.get(o1), playerHealth.get(o2)));
+    private void ensureCapacity() {
+        if (command.length >= players.size()) {
+            return;
+        }
 
-        optionalMaximum.ifPresent(maximum -> {
-            final var filtered = itemLocation.entrySet().stream().filter(entry -> entry.getValue().equals(location)).toList();
+        final var capacity = Math.max(command.length * 2, players.size());
+        command = Arrays.copyOf(command, capacity);
+        commanded = Arrays.copyOf(commanded, capacity);
+        fought = Arrays.copyOf(fought, capacity);
+        group = Arrays.copyOf(group, capacity);
+        moved = Arrays.copyOf(moved, capacity);
+        movedSlots = Arrays.copyOf(movedSlots, capacity);
+        fromRow = Arrays.copyOf(fromRow, capacity);
+        fromColumn = Arrays.copyOf(fromColumn, capacity);
+        shifted = Arrays.copyOf(shifted, capacity);
+        order = Arrays.copyOf(order, capacity);
+        targetColumn = Arrays.copyOf(targetColumn, capacity);
+        final var size = targetRow.length;
+        targetRow = Arrays.copyOf(targetRow, capacity);
+        Arrays.fill(targetRow, size, capacity, -1);
+    }
 
-            // do something with non player entities, i.e. gold?
-            itemLocation.entrySet().stream()
-                    .filter(entry -> entry.getValue().equals(location))
-                    .forEach(entry -> {
-                        switch (entry.getKey()) {
-                            case Item.Gold(int id, int value) -> {
-                                playerGold.computeIfPresent(maximum, (ignored, current) -> current + value);
-                            }
+    // a full cave gets its items on a later step
+    private boolean full() {
+        return freeCells != null && freeCells.size() == 0;
+    }
 
-                            case Item.Health(int id, int value) -> {
-                                playerHealth.computeIfPresent(maximum, (ignored, current) -> current + value);
-                            }
-                        }
-                    });
+    private void generateHealth() {
+        for (int i = 0; i < NUM_GOLD && !full(); i++) {
+            add(new Item.Health(i, random.nextInt(100)), this::randomLocation);
+        }
+    }
 
-            filtered.forEach(entry -> itemLocation.remove(entry.getKey()));
-        });
+    private void generateGold() {
+        for (int i = 0; i < NUM_HEALTH && !full(); i++) {
+            add(new Item.Gold(i, random.nextInt(100)), this::randomLocation);
+        }
     }
 
-    private Location move(Location value, Action action) {
-        return switch (action.direction()) {
-            case null -> value;
-            case Up -> new Location(value.row() - 1, value.column());
-            case Down -> new Location(value.row() + 1, value.column());
-            case Left -> new Location(value.row(), value.column() - 1);
-            case Right -> new Location(value.row(), value.column() + 1);
+    private static int row(int row, Direction direction) {
+        return row + switch (direction) {
+            case Up -> -1;
+            case Down -> 1;
+            case Left, Right -> 0;
         };
     }
 
+    private static int column(int column, Direction direction) {
+        return column + switch (direction) {
+            case Left -> -1;
+            case Right -> 1;
+            case Up, Down -> 0;
+        };
+    }
+
+    // fights in the cell of the slot unless it has been fought in already this step, returns the collected item
+    private Item fight(int slot, int[] group) {
+        if (fought[slot] == step || players.health(slot) == 0) {
+            return null;
+        }
+
+        final var row = players.row(slot);
+        final var column = players.column(slot);
+        var size = 0;
+        for (int other = occupancy.first(row, column); other != -1; other = occupancy.next(other)) {
+            if (players.health(other) != 0) {
+                fought[other] = step;
+                group[size++] = other;
+            }
+        }
+
+        // "fight" - health of all players is reduced by half of health of the weakest one
+        if (size > 1) {
+            var minimumHealth = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                minimumHealth = Math.min(minimumHealth, players.health(group[i]));
+            }
+
+            final var hit = Math.max(minimumHealth / 2, MINIMUM_HIT);
+            var loot = 0;
+            for (int i = 0; i < size; i++) {
+                final var health = Math.max(players.health(group[i]) - hit, 0);
+                players.health(group[i], health);
+                if (health == 0) {
+                    loot += players.gold(group[i]);
+                }
+            }
+
+            final var maximum = strongest(group, size);
+            players.gold(maximum, players.gold(maximum) + loot / 2);
+        }
+
+        // do something with non player entities, i.e. gold?
+        final var item = occupancy.item(row, column);
+        if (item == null) {
+            return null;
+        }
+
+        final var maximum = strongest(group, size);
+        switch (item) {
+            case Item.Gold(int id, int value) -> players.gold(maximum, players.gold(maximum) + value);
+            case Item.Health(int id, int value) -> players.health(maximum, players.health(maximum) + value);
+        }
+
+        occupancy.item(row, column, null);
+        return item;
+    }
+
+    // the player added first wins a tie
+    private int strongest(int[] group, int size) {
+        var maximum = group[0];
+        for (int i = 1; i < size; i++) {
+            final var slot = group[i];
+            final var health = players.health(slot);
+            if (health > players.health(maximum) || health == players.health(maximum) && slot < maximum) {
+                maximum = slot;
+            }
+        }
+        return maximum;
+    }
+
+    // the item has already been taken off its cell
+    private void collected(Item item) {
+        itemLocation.remove(item);
+        switch (item) {
+            case Item.Gold ignored -> {
+                golds--;
+                goldMoved = true;
+            }
+            case Item.Health ignored -> healths--;
+        }
+        if (itemsAdded.remove(item) == null) {
+            itemsRemoved.add(item);
+        }
+    }
+
     public Integer health(Player.HumanPlayer player) {
         return playerHealth.get(player);
     }
@@ -259,17 +728,53 @@ public class Game {
         return playerGold.get(player);
     }
 
-    public void statistics() {
-        if (step % 10 != 0) {
-            return;
-        }
-
-        System.out.println("------------------------------");
-        System.out.println("Step: " + step);
-        playerGold.entrySet().stream()
+    // gold and health of every player, a line per player by gold
+    public String statistics() {
+        return playerGold.entrySet().stream()
                 .sorted(Map.Entry.comparingByValue())
                 .map(Map.Entry::getKey)
                 .map(player -> "Gold: " + playerGold.getOrDefault(player, 0) + ", Health: " + playerHealth.getOrDefault(player, 0) + ", Player: " + player)
-                .forEach(System.out::println);
+                .collect(Collectors.joining("\n"));
+    }
+
+    // per band scratch space of the parallel step
+    private static final class Band {
+        private int[] slots = new int[16];
+        private int size;
+        private int[] group = new int[16];
+        private final List<Item> items = new ArrayList<>();
+
+        private void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    private static final class BandTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final transient IntConsumer action;
+
+        private BandTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                action.accept(from);
+                return;
+            }
+
+            final var middle = (from + to) >>> 1;
+            invokeAll(new BandTask(from, middle, action), new BandTask(middle, to, action));
+        }
     }
 }
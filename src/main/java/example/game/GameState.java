@@ -0,0 +1,12 @@
+package example.game;
+
+import example.domain.game.Item;
+import example.domain.game.Location;
+import example.domain.game.Player;
+
+import java.util.Map;
+
+// Everything a game needs to go on from where it was besides its cave and randomness, players listed in the order
+// they were added. Taken on the tick thread and only read afterwards, the arrays must not be changed.
+public record GameState(int step, Player[] players, int[] rows, int[] columns, int[] health, int[] gold, Map<Item, Location> items) {
+}
@@ -0,0 +1,143 @@
+package example.game;
+
+import example.domain.game.Cave;
+import example.domain.game.Item;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// What occupies each cell of the cave: at most one item and a list of player slots linked through next.
+// Caves up to DENSE_LIMIT cells are indexed by arrays, larger ones fall back to hash maps keyed by cell.
+abstract sealed class Occupancy permits Occupancy.Dense, Occupancy.Sparse {
+    static final long DENSE_LIMIT = 1 << 24;
+
+    private int[] next = new int[16];
+
+    static Occupancy of(Cave cave) {
+        final var cells = (long) cave.rows() * cave.columns();
+        if (cells <= DENSE_LIMIT) {
+            return new Dense(cave.columns(), (int) cells);
+        }
+
+        return new Sparse(cave.columns());
+    }
+
+    abstract Item item(int row, int column);
+
+    // null removes the item
+    abstract void item(int row, int column, Item item);
+
+    // first player slot in the cell, -1 if there is none
+    abstract int first(int row, int column);
+
+    abstract void first(int row, int column, int slot);
+
+    // following player slot in the same cell, -1 if there is none
+    final int next(int slot) {
+        return next[slot];
+    }
+
+    final boolean free(int row, int column) {
+        return item(row, column) == null && first(row, column) == -1;
+    }
+
+    final void enter(int row, int column, int slot) {
+        if (slot >= next.length) {
+            next = Arrays.copyOf(next, Math.max(next.length * 2, slot + 1));
+        }
+
+        next[slot] = first(row, column);
+        first(row, column, slot);
+    }
+
+    final void leave(int row, int column, int slot) {
+        final var first = first(row, column);
+        if (first == slot) {
+            first(row, column, next[slot]);
+            return;
+        }
+
+        for (int previous = first; previous != -1; previous = next[previous]) {
+            if (next[previous] == slot) {
+                next[previous] = next[slot];
+                return;
+            }
+        }
+    }
+
+    static final class Dense extends Occupancy {
+        private final int columns;
+        private final Item[] items;
+        private final int[] first;
+
+        private Dense(int columns, int cells) {
+            this.columns = columns;
+            this.items = new Item[cells];
+            this.first = new int[cells];
+            Arrays.fill(this.first, -1);
+        }
+
+        @Override
+        Item item(int row, int column) {
+            return items[row * columns + column];
+        }
+
+        @Override
+        void item(int row, int column, Item item) {
+            items[row * columns + column] = item;
+        }
+
+        @Override
+        int first(int row, int column) {
+            return first[row * columns + column];
+        }
+
+        @Override
+        void first(int row, int column, int slot) {
+            first[row * columns + column] = slot;
+        }
+    }
+
+    static final class Sparse extends Occupancy {
+        private final int columns;
+        private final Map<Long, Item> items = new HashMap<>();
+        private final Map<Long, Integer> first = new HashMap<>();
+
+        private Sparse(int columns) {
+            this.columns = columns;
+        }
+
+        private long cell(int row, int column) {
+            return (long) row * columns + column;
+        }
+
+        @Override
+        Item item(int row, int column) {
+            return items.get(cell(row, column));
+        }
+
+        @Override
+        void item(int row, int column, Item item) {
+            if (item == null) {
+                items.remove(cell(row, column));
+            } else {
+                items.put(cell(row, column), item);
+            }
+        }
+
+        @Override
+        int first(int row, int column) {
+            return first.getOrDefault(cell(row, column), -1);
+        }
+
+        @Override
+        void first(int row, int column, int slot) {
+            if (slot == -1) {
+                first.remove(cell(row, column));
+            } else {
+                first.put(cell(row, column), slot);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package example.game;
+
+import example.domain.game.Location;
+import example.domain.game.Player;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+// Player state stored column by column, every player owns a dense slot in the primitive arrays.
+// Slots are assigned in the order players are added and never reused.
+final class Players {
+    private final Map<Player, Integer> slots = new HashMap<>();
+    private Player[] players = new Player[16];
+    private int[] health = new int[16];
+    private int[] gold = new int[16];
+    private int[] row = new int[16];
+    private int[] column = new int[16];
+    private int size;
+    private int humans;
+
+    int add(Player player, int row, int column, int health, int gold) {
+        if (slots.containsKey(player)) {
+            throw new IllegalArgumentException("Player already added: " + player);
+        }
+
+        if (size == players.length) {
+            final var capacity = size * 2;
+            this.players = Arrays.copyOf(this.players, capacity);
+            this.health = Arrays.copyOf(this.health, capacity);
+            this.gold = Arrays.copyOf(this.gold, capacity);
+            this.row = Arrays.copyOf(this.row, capacity);
+            this.column = Arrays.copyOf(this.column, capacity);
+        }
+
+        final var slot = size++;
+        slots.put(player, slot);
+        this.players[slot] = player;
+        this.health[slot] = health;
+        this.gold[slot] = gold;
+        this.row[slot] = row;
+        this.column[slot] = column;
+        if (human(slot)) {
+            humans++;
+        }
+        return slot;
+    }
+
+    // -1 for unknown players
+    int slot(Object player) {
+        final var slot = slots.get(player);
+        return slot == null ? -1 : slot;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Player player(int slot) {
+        return players[slot];
+    }
+
+    boolean human(int slot) {
+        return players[slot] instanceof Player.HumanPlayer;
+    }
+
+    int health(int slot) {
+        return health[slot];
+    }
+
+    void health(int slot, int value) {
+        health[slot] = value;
+    }
+
+    int gold(int slot) {
+        return gold[slot];
+    }
+
+    void gold(int slot, int value) {
+        gold[slot] = value;
+    }
+
+    int row(int slot) {
+        return row[slot];
+    }
+
+    int column(int slot) {
+        return column[slot];
+    }
+
+    void move(int slot, int row, int column) {
+        this.row[slot] = row;
+        this.column[slot] = column;
+    }
+
+    Map<Player, Integer> healthView() {
+        return new View<>(true, slot -> health[slot]);
+    }
+
+    Map<Player, Integer> goldView() {
+        return new View<>(true, slot -> gold[slot]);
+    }
+
+    Map<Player, Location> locationView() {
+        return new View<>(false, slot -> new Location(row[slot], column[slot]));
+    }
+
+    // read only map backed by the arrays, health and gold are only kept for human players
+    private final class View<V> extends AbstractMap<Player, V> {
+        private final boolean humansOnly;
+        private final IntFunction<V> value;
+
+        private View(boolean humansOnly, IntFunction<V> value) {
+            this.humansOnly = humansOnly;
+            this.value = value;
+        }
+
+        private boolean included(int slot) {
+            return slot >= 0 && (!humansOnly || human(slot));
+        }
+
+        @Override
+        public V get(Object key) {
+            final var slot = slot(key);
+            return included(slot) ? value.apply(slot) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return included(slot(key));
+        }
+
+        @Override
+        public int size() {
+            return humansOnly ? humans : size;
+        }
+
+        @Override
+        public Set<Entry<Player, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Player, V>> iterator() {
+                    return new Iterator<>() {
+                        private int next = advance(0);
+
+                        private int advance(int slot) {
+                            while (slot < size && !included(slot)) {
+                                slot++;
+                            }
+                            return slot;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < size;
+                        }
+
+                        @Override
+                        public Entry<Player, V> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            final var slot = next;
+                            next = advance(slot + 1);
+                            return new SimpleImmutableEntry<>(players[slot], value.apply(slot));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return View.this.size();
+                }
+            };
+        }
+    }
+}
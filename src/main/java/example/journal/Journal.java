@@ -0,0 +1,164 @@
+package example.journal;
+
+import example.domain.game.Action;
+import example.domain.game.BitCave;
+import example.domain.game.Cave;
+import example.domain.game.Item;
+import example.domain.game.Location;
+import example.domain.game.Player;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Append-only record of everything a seeded game needs to be played again: the seed and the cave, then for every
+// tick the players that joined, the actions taken and, to check the replay against, the items spawned.
+// Ticks are queued and written by a thread of its own, so a slow disk does not slow the tick down.
+//
+//   header  "MZJ2", seed, rows, columns, cave bytes as BitCave.toBytes
+//   tick    tick, joined count, ('P' name | 'D' dragon id, size ordinal)*, action count, (player id, direction ordinal or -1)*,
+//           spawned count, (item, row, column)*
+// where numbers are unsigned varints, names are length prefixed UTF-8, player ids count joins from 0,
+// directions are single bytes and items are 'G' | 'H', id, value.
+public final class Journal implements Closeable {
+    static final int MAGIC = 'M' << 24 | 'Z' << 16 | 'J' << 8 | '2';
+
+    private static final Logger logger = LoggerFactory.getLogger(Journal.class);
+
+    private final BlockingQueue<Tick> ticks = new LinkedBlockingQueue<>();
+    private final DataOutputStream output;
+    private final Map<Player, Integer> ids = new HashMap<>();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public record Tick(long tick, List<Player> joined, List<Action> actions, Map<Item, Location> spawned) {
+    }
+
+    private static final Tick END = new Tick(-1, List.of(), List.of(), Map.of());
+
+    public Journal(OutputStream output, long seed, Cave cave) throws IOException {
+        this.output = new DataOutputStream(new BufferedOutputStream(output));
+        this.output.writeInt(MAGIC);
+        this.output.writeLong(seed);
+        varint(cave.rows());
+        varint(cave.columns());
+        this.output.write(BitCave.of(cave).toBytes());
+        this.output.flush();
+        this.writer = Thread.ofPlatform().name("journal").daemon().start(this::write);
+    }
+
+    public static Journal create(Path path, long seed, Cave cave) throws IOException {
+        return new Journal(Files.newOutputStream(path), seed, cave);
+    }
+
+    // the lists and map must not change afterwards
+    public void record(Tick tick) {
+        if (!closed) {
+            ticks.add(tick);
+        }
+    }
+
+    // waits until every recorded tick is written
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        ticks.add(END);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        output.close();
+    }
+
+    private void write() {
+        try {
+            for (; ; ) {
+                final var tick = ticks.take();
+                if (tick == END) {
+                    output.flush();
+                    return;
+                }
+
+                write(tick);
+                // written out whenever the writer catches up, a crash loses the ticks still buffered
+                if (ticks.isEmpty()) {
+                    output.flush();
+                }
+            }
+        } catch (IOException e) {
+            closed = true;
+            ticks.clear();
+            logger.error("Journal stopped", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(Tick tick) throws IOException {
+        varint(tick.tick());
+        varint(tick.joined().size());
+        for (final var player : tick.joined()) {
+            ids.putIfAbsent(player, ids.size());
+            switch (player) {
+                case Player.HumanPlayer(String name) -> {
+                    final var bytes = name.getBytes(StandardCharsets.UTF_8);
+                    output.writeByte('P');
+                    varint(bytes.length);
+                    output.write(bytes);
+                }
+                case Player.Dragon(int id, Player.Dragon.Size size) -> {
+                    output.writeByte('D');
+                    varint(id);
+                    output.writeByte(size.ordinal());
+                }
+            }
+        }
+
+        // actions of players that have not joined are ignored by the game as well
+        final var actions = tick.actions().stream().filter(action -> ids.containsKey(action.player())).toList();
+        varint(actions.size());
+        for (final var action : actions) {
+            varint(ids.get(action.player()));
+            output.writeByte(action.direction() == null ? -1 : action.direction().ordinal());
+        }
+
+        varint(tick.spawned().size());
+        for (final var entry : tick.spawned().entrySet()) {
+            switch (entry.getKey()) {
+                case Item.Gold(int id, int value) -> {
+                    output.writeByte('G');
+                    varint(id);
+                    varint(value);
+                }
+                case Item.Health(int id, int value) -> {
+                    output.writeByte('H');
+                    varint(id);
+                    varint(value);
+                }
+            }
+            varint(entry.getValue().row());
+            varint(entry.getValue().column());
+        }
+    }
+
+    private void varint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+}
@@ -0,0 +1,123 @@
+package example.journal;
+
+import example.domain.game.Action;
+import example.domain.game.BitCave;
+import example.domain.game.Cave;
+import example.domain.game.Direction;
+import example.domain.game.Item;
+import example.domain.game.Location;
+import example.domain.game.Player;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Reads back what Journal wrote, a tick cut short at the end of the journal is treated as the end.
+public final class JournalReader implements Closeable {
+    private final DataInputStream input;
+    private final long seed;
+    private final Cave cave;
+    // by id, in the order they first joined
+    private final List<Player> players = new ArrayList<>();
+    private final Set<Player> known = new HashSet<>();
+
+    public JournalReader(InputStream input) throws IOException {
+        this.input = new DataInputStream(new BufferedInputStream(input));
+        if (this.input.readInt() != Journal.MAGIC) {
+            throw new IOException("Not a journal");
+        }
+
+        this.seed = this.input.readLong();
+        final var rows = (int) varint();
+        final var columns = (int) varint();
+        this.cave = BitCave.fromBytes(rows, columns, this.input.readNBytes((int) (((long) rows * columns + 7) >>> 3)));
+    }
+
+    public static JournalReader open(Path path) throws IOException {
+        return new JournalReader(Files.newInputStream(path));
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    public Cave cave() {
+        return cave;
+    }
+
+    // null at the end of the journal
+    public Journal.Tick next() throws IOException {
+        try {
+            final var first = input.read();
+            if (first == -1) {
+                return null;
+            }
+
+            final var tick = varint(first);
+            final var joined = new ArrayList<Player>();
+            for (var count = varint(); count > 0; count--) {
+                final Player player = switch (input.readByte()) {
+                    case 'P' -> new Player.HumanPlayer(new String(input.readNBytes((int) varint()), StandardCharsets.UTF_8));
+                    case 'D' -> new Player.Dragon((int) varint(), Player.Dragon.Size.values()[input.readByte()]);
+                    default -> throw new IOException("Unknown player");
+                };
+                joined.add(player);
+                if (known.add(player)) {
+                    players.add(player);
+                }
+            }
+
+            final var actions = new ArrayList<Action>();
+            final var directions = Direction.values();
+            for (var count = varint(); count > 0; count--) {
+                final var player = players.get((int) varint());
+                final var direction = input.readByte();
+                actions.add(new Action(player, direction < 0 ? null : directions[direction]));
+            }
+
+            final var spawned = new HashMap<Item, Location>();
+            for (var count = varint(); count > 0; count--) {
+                final Item item = switch (input.readByte()) {
+                    case 'G' -> new Item.Gold((int) varint(), (int) varint());
+                    case 'H' -> new Item.Health((int) varint(), (int) varint());
+                    default -> throw new IOException("Unknown item");
+                };
+                spawned.put(item, new Location((int) varint(), (int) varint()));
+            }
+
+            return new Journal.Tick(tick, joined, actions, spawned);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private long varint() throws IOException {
+        return varint(input.readUnsignedByte());
+    }
+
+    private long varint(int first) throws IOException {
+        var value = (long) (first & 0x7F);
+        var b = first;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+        }
+        return value;
+    }
+}
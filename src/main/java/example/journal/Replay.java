@@ -0,0 +1,45 @@
+package example.journal;
+
+import example.game.Game;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+// Plays a journal again up to a tick and checks on the way that every tick spawns the items it spawned originally.
+// Usage: Replay <journal> [tick], prints the cave and the players at the tick, the last one by default.
+public final class Replay {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: Replay <journal> [tick]");
+            System.exit(2);
+        }
+
+        final var game = replay(Path.of(args[0]), args.length > 1 ? Long.parseLong(args[1]) : Long.MAX_VALUE);
+        System.out.print(game.render());
+        game.playerLocation().forEach((player, location) ->
+                System.out.println(player + " at " + location + ", health " + game.playerHealth().get(player) + ", gold " + game.playerGold().get(player)));
+    }
+
+    // the game as it was right after the tick, or after the last tick of the journal if it ends earlier
+    public static Game replay(Path journal, long tick) throws IOException {
+        try (final var reader = JournalReader.open(journal)) {
+            return replay(reader, tick);
+        }
+    }
+
+    public static Game replay(JournalReader reader, long tick) throws IOException {
+        final var game = new Game(reader.cave(), reader.seed());
+        for (var next = reader.next(); next != null && next.tick() <= tick; next = reader.next()) {
+            // the same calls in the same order as the room made them
+            next.joined().forEach(player -> game.add(player, game::randomLocation));
+            game.step(next.actions());
+
+            final var spawned = game.drainChanges().itemsAdded();
+            if (!Objects.equals(spawned, next.spawned())) {
+                throw new IllegalStateException("Replay diverged at tick " + next.tick() + ", spawned " + spawned + " instead of " + next.spawned());
+            }
+        }
+        return game;
+    }
+}
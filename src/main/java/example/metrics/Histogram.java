@@ -0,0 +1,75 @@
+package example.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free histogram of non-negative values. Every power of two is split into 8 linear buckets, so a percentile,
+// reported as the upper bound of its bucket, is at most 12.5% above the recorded value.
+public final class Histogram {
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BITS = 3;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(index(Long.MAX_VALUE) + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        final var clamped = Math.max(value, 0);
+        buckets.incrementAndGet(index(clamped));
+        count.increment();
+        sum.add(clamped);
+        max.accumulateAndGet(clamped, Math::max);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    // 0 when nothing has been recorded
+    public long percentile(double percentile) {
+        final var total = count();
+        if (total == 0) {
+            return 0;
+        }
+
+        final var rank = Math.max(1, (long) Math.ceil(percentile * total));
+        var seen = 0L;
+        for (int index = 0; index < buckets.length(); index++) {
+            seen += buckets.get(index);
+            if (seen >= rank) {
+                return Math.min(upperBound(index), max());
+            }
+        }
+        return max();
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final var exponent = 63 - Long.numberOfLeadingZeros(value);
+        final var sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        final var exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        final var sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+}
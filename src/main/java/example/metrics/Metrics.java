@@ -0,0 +1,58 @@
+package example.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Named counters, gauges and histograms. Names are made of letters, digits and underscores, anything else is
+// replaced by an underscore so that player and room names can be part of them.
+public final class Metrics {
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] PERCENTILE_SUFFIXES = {"_p50", "_p90", "_p99", "_p999"};
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public static String name(String... parts) {
+        return String.join("_", parts).replaceAll("[^A-Za-z0-9_]", "_");
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, ignored -> new LongAdder());
+    }
+
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, ignored -> new Histogram());
+    }
+
+    // forgets the metric of exactly this name
+    public void remove(String name) {
+        counters.remove(name);
+        gauges.remove(name);
+        histograms.remove(name);
+    }
+
+    // current values by name, histograms contribute their count, sum, max and percentiles
+    public SortedMap<String, Long> values() {
+        final var values = new TreeMap<String, Long>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        histograms.forEach((name, histogram) -> {
+            values.put(name + "_count", histogram.count());
+            values.put(name + "_sum", histogram.sum());
+            values.put(name + "_max", histogram.max());
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                values.put(name + PERCENTILE_SUFFIXES[i], histogram.percentile(PERCENTILES[i]));
+            }
+        });
+        return values;
+    }
+}
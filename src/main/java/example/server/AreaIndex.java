@@ -0,0 +1,85 @@
+package example.server;
+
+import example.domain.Response;
+import example.domain.game.Location;
+import example.domain.game.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Locations of a state bucketed into square blocks of cells, finds the entities within a radius of a location by
+// looking only at the blocks the radius overlaps. The radius is measured along rows and columns, a square window.
+final class AreaIndex {
+    private static final int BLOCK = 16;
+
+    private final Map<Long, List<Response.StateLocations.ItemLocation>> items;
+    private final Map<Long, List<Response.StateLocations.PlayerLocation>> players;
+    private final Map<Player, Location> locations = new HashMap<>();
+
+    AreaIndex(List<Response.StateLocations.ItemLocation> itemLocations, List<Response.StateLocations.PlayerLocation> playerLocations) {
+        this.items = bucket(itemLocations, Response.StateLocations.ItemLocation::location);
+        this.players = bucket(playerLocations, Response.StateLocations.PlayerLocation::location);
+        playerLocations.forEach(playerLocation -> locations.put(playerLocation.entity(), playerLocation.location()));
+    }
+
+    // null for players not in the state
+    Location location(Player player) {
+        return locations.get(player);
+    }
+
+    List<Response.StateLocations.ItemLocation> items(Location center, int radius) {
+        return query(items, Response.StateLocations.ItemLocation::location, center, radius);
+    }
+
+    List<Response.StateLocations.PlayerLocation> players(Location center, int radius) {
+        return query(players, Response.StateLocations.PlayerLocation::location, center, radius);
+    }
+
+    private static long block(int row, int column) {
+        return (long) Math.floorDiv(row, BLOCK) << 32 | Math.floorDiv(column, BLOCK) & 0xFFFFFFFFL;
+    }
+
+    private static <T> Map<Long, List<T>> bucket(List<T> entities, Function<T, Location> location) {
+        final var buckets = new HashMap<Long, List<T>>();
+        for (final var entity : entities) {
+            final var at = location.apply(entity);
+            buckets.computeIfAbsent(block(at.row(), at.column()), ignored -> new ArrayList<>()).add(entity);
+        }
+        return buckets;
+    }
+
+    private static <T> List<T> query(Map<Long, List<T>> buckets, Function<T, Location> location, Location center, int radius) {
+        final var result = new ArrayList<T>();
+        final var firstRow = Math.floorDiv((long) center.row() - radius, BLOCK);
+        final var lastRow = Math.floorDiv((long) center.row() + radius, BLOCK);
+        final var firstColumn = Math.floorDiv((long) center.column() - radius, BLOCK);
+        final var lastColumn = Math.floorDiv((long) center.column() + radius, BLOCK);
+        // a window wider than the occupied blocks is cheaper to answer by going through all of them
+        if ((lastRow - firstRow + 1) * (lastColumn - firstColumn + 1) > buckets.size()) {
+            buckets.values().forEach(bucket -> within(bucket, location, center, radius, result));
+            return result;
+        }
+
+        for (long blockRow = firstRow; blockRow <= lastRow; blockRow++) {
+            for (long blockColumn = firstColumn; blockColumn <= lastColumn; blockColumn++) {
+                final var bucket = buckets.get(blockRow << 32 | blockColumn & 0xFFFFFFFFL);
+                if (bucket != null) {
+                    within(bucket, location, center, radius, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static <T> void within(List<T> bucket, Function<T, Location> location, Location center, int radius, List<T> result) {
+        for (final var entity : bucket) {
+            final var at = location.apply(entity);
+            if (Math.abs((long) at.row() - center.row()) <= radius && Math.abs((long) at.column() - center.column()) <= radius) {
+                result.add(entity);
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package example.server;
+
+import example.domain.Request;
+import example.domain.Response;
+import example.domain.game.BitCave;
+import example.domain.game.Cave;
+import example.domain.game.Direction;
+import example.domain.game.Item;
+import example.domain.game.Location;
+import example.domain.game.Player;
+import example.game.Changes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Frames are prefixed with their length as an unsigned LEB128 varint, the first byte of a frame is its type.
+// Locations are a varint row followed by a varint column, players are referenced by their Roster id.
+//
+// client -> server
+//   command  [direction ordinal]
+// server -> client
+//   'C' cave      rows, columns, rocks as bits row by row, least significant bit first
+//   'Z' cave chunk rows, columns, chunk, chunks, part of the rocks of 'C' deflated
+//   'P' roster    count, (id, 'P' name | 'D' dragon id, size ordinal)*
+//   'L' locations items, players, health, gold
+//   'D' delta     items added, items removed, players moved, health, gold
+// where items are count, ('G' | 'H', id, value, location)* and players are count, (id, location)*
+final class BinaryProtocol implements Protocol {
+    private final Roster roster;
+
+    BinaryProtocol(Roster roster) {
+        this.roster = roster;
+    }
+
+    @Override
+    public Request read(InputStream is) throws IOException {
+        final var length = readVarint(is);
+        if (length < 0) {
+            return null;
+        }
+
+        final var payload = is.readNBytes(length);
+        if (payload.length != length || length != 1) {
+            throw new IOException("Malformed command frame");
+        }
+
+        final var directions = Direction.values();
+        if (payload[0] < 0 || payload[0] >= directions.length) {
+            throw new IOException("Unknown direction " + payload[0]);
+        }
+
+        return new Request.Command(directions[payload[0]]);
+    }
+
+    @Override
+    public byte[] encodeCave(Cave cave) {
+        final var frame = new Frame();
+        frame.write('C');
+        frame.varint(cave.rows());
+        frame.varint(cave.columns());
+        frame.writeBytes(BitCave.of(cave).toBytes());
+        return frame.withLength();
+    }
+
+    @Override
+    public byte[] encodeCaveChunk(Response.StateCaveChunk chunk) {
+        final var frame = new Frame();
+        frame.write('Z');
+        frame.varint(chunk.rows());
+        frame.varint(chunk.columns());
+        frame.varint(chunk.chunk());
+        frame.varint(chunk.chunks());
+        frame.writeBytes(chunk.data());
+        return frame.withLength();
+    }
+
+    @Override
+    public byte[] encodeLocations(List<Response.StateLocations.ItemLocation> itemLocations,
+                                  List<Response.StateLocations.PlayerLocation> playerLocations) {
+        final var frame = new Frame();
+        frame.write('L');
+        frame.varint(itemLocations.size());
+        itemLocations.forEach(itemLocation -> {
+            frame.item(itemLocation.entity());
+            frame.location(itemLocation.location());
+        });
+        frame.varint(playerLocations.size());
+        playerLocations.forEach(playerLocation -> {
+            frame.varint(roster.id(playerLocation.entity()));
+            frame.location(playerLocation.location());
+        });
+        return frame.toByteArray();
+    }
+
+    @Override
+    public byte[] encodeDelta(Changes changes) {
+        final var frame = new Frame();
+        frame.write('D');
+        frame.varint(changes.itemsAdded().size());
+        changes.itemsAdded().forEach((item, location) -> {
+            frame.item(item);
+            frame.location(location);
+        });
+        frame.varint(changes.itemsRemoved().size());
+        changes.itemsRemoved().forEach(frame::item);
+        frame.varint(changes.playersMoved().size());
+        changes.playersMoved().forEach((player, location) -> {
+            frame.varint(roster.id(player));
+            frame.location(location);
+        });
+        return frame.toByteArray();
+    }
+
+    @Override
+    public int writeRoster(OutputStream os, Roster roster, int sent) throws IOException {
+        final var size = roster.size();
+        if (size == sent) {
+            return sent;
+        }
+
+        final var frame = new Frame();
+        frame.write('P');
+        frame.varint(size - sent);
+        for (int id = sent; id < size; id++) {
+            frame.varint(id);
+            switch (roster.player(id)) {
+                case Player.HumanPlayer(String name) -> {
+                    frame.write('P');
+                    frame.string(name);
+                }
+                case Player.Dragon(int dragonId, Player.Dragon.Size dragonSize) -> {
+                    frame.write('D');
+                    frame.varint(dragonId);
+                    frame.write(dragonSize.ordinal());
+                }
+            }
+        }
+
+        writeVarint(os, frame.size());
+        frame.writeTo(os);
+        return size;
+    }
+
+    @Override
+    public void writeState(OutputStream os, byte[] shared, int health, int gold) throws IOException {
+        writeVarint(os, shared.length + varintSize(health) + varintSize(gold));
+        os.write(shared);
+        writeVarint(os, health);
+        writeVarint(os, gold);
+    }
+
+    static void writeVarint(OutputStream os, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            os.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        os.write(value);
+    }
+
+    // -1 at the end of the stream
+    static int readVarint(InputStream is) throws IOException {
+        var value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final var b = is.read();
+            if (b == -1) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException();
+            }
+
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int varintSize(int value) {
+        return value == 0 ? 1 : (38 - Integer.numberOfLeadingZeros(value)) / 7;
+    }
+
+    private static final class Frame extends ByteArrayOutputStream {
+        private void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        private void location(Location location) {
+            varint(location.row());
+            varint(location.column());
+        }
+
+        private void item(Item item) {
+            switch (item) {
+                case Item.Gold(int id, int value) -> {
+                    write('G');
+                    varint(id);
+                    varint(value);
+                }
+                case Item.Health(int id, int value) -> {
+                    write('H');
+                    varint(id);
+                    varint(value);
+                }
+            }
+        }
+
+        // the frame prefixed with its length
+        private byte[] withLength() {
+            final var framed = new Frame();
+            framed.varint(size());
+            framed.write(buf, 0, count);
+            return framed.toByteArray();
+        }
+
+        private void string(String value) {
+            final var bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    // Client side of the protocol, keeps the roster received so far
+    static final class Client {
+        private final List<Player> players = new ArrayList<>();
+        private final CavePayloads.Assembler assembler = new CavePayloads.Assembler();
+
+        static void writeCommand(OutputStream os, Direction direction) throws IOException {
+            os.write(1);
+            os.write(direction.ordinal());
+            os.flush();
+        }
+
+        // null at the end of the stream, roster frames are consumed, cave chunks until the cave is complete
+        Response read(InputStream is) throws IOException {
+            for (; ; ) {
+                final var length = readVarint(is);
+                if (length < 0) {
+                    return null;
+                }
+
+                final var payload = is.readNBytes(length);
+                if (payload.length != length) {
+                    throw new EOFException();
+                }
+
+                final var buffer = ByteBuffer.wrap(payload);
+                switch (buffer.get()) {
+                    case 'P' -> roster(buffer);
+                    case 'C' -> {
+                        return cave(buffer);
+                    }
+                    case 'Z' -> {
+                        final var chunk = new Response.StateCaveChunk(varint(buffer), varint(buffer), varint(buffer), varint(buffer), new byte[buffer.remaining()]);
+                        buffer.get(chunk.data());
+                        final var cave = assembler.add(chunk);
+                        if (cave != null) {
+                            return new Response.StateCave(cave);
+                        }
+                    }
+                    case 'L' -> {
+                        return new Response.StateLocations(itemLocations(buffer), playerLocations(buffer), varint(buffer), varint(buffer));
+                    }
+                    case 'D' -> {
+                        return new Response.StateDelta(itemLocations(buffer), items(buffer), playerLocations(buffer), varint(buffer), varint(buffer));
+                    }
+                    default -> throw new IOException("Unknown frame " + payload[0]);
+                }
+            }
+        }
+
+        private void roster(ByteBuffer buffer) {
+            final var count = varint(buffer);
+            for (int i = 0; i < count; i++) {
+                final var id = varint(buffer);
+                final Player player = switch (buffer.get()) {
+                    case 'P' -> {
+                        final var bytes = new byte[varint(buffer)];
+                        buffer.get(bytes);
+                        yield new Player.HumanPlayer(new String(bytes, StandardCharsets.UTF_8));
+                    }
+                    case 'D' -> new Player.Dragon(varint(buffer), Player.Dragon.Size.values()[buffer.get()]);
+                    default -> throw new IllegalStateException("Unknown player");
+                };
+                while (players.size() <= id) {
+                    players.add(null);
+                }
+                players.set(id, player);
+            }
+        }
+
+        private static Response.StateCave cave(ByteBuffer buffer) {
+            final var rows = varint(buffer);
+            final var columns = varint(buffer);
+            final var cells = new byte[buffer.remaining()];
+            buffer.get(cells);
+            return new Response.StateCave(BitCave.fromBytes(rows, columns, cells));
+        }
+
+        private static Collection<Item> items(ByteBuffer buffer) {
+            final var count = varint(buffer);
+            final var items = new ArrayList<Item>(count);
+            for (int i = 0; i < count; i++) {
+                items.add(item(buffer));
+            }
+            return items;
+        }
+
+        private static Collection<Response.StateLocations.ItemLocation> itemLocations(ByteBuffer buffer) {
+            final var count = varint(buffer);
+            final var itemLocations = new ArrayList<Response.StateLocations.ItemLocation>(count);
+            for (int i = 0; i < count; i++) {
+                itemLocations.add(new Response.StateLocations.ItemLocation(item(buffer), location(buffer)));
+            }
+            return itemLocations;
+        }
+
+        private Collection<Response.StateLocations.PlayerLocation> playerLocations(ByteBuffer buffer) {
+            final var count = varint(buffer);
+            final var playerLocations = new ArrayList<Response.StateLocations.PlayerLocation>(count);
+            for (int i = 0; i < count; i++) {
+                playerLocations.add(new Response.StateLocations.PlayerLocation(players.get(varint(buffer)), location(buffer)));
+            }
+            return playerLocations;
+        }
+
+        private static Item item(ByteBuffer buffer) {
+            return switch (buffer.get()) {
+                case 'G' -> new Item.Gold(varint(buffer), varint(buffer));
+                case 'H' -> new Item.Health(varint(buffer), varint(buffer));
+                default -> throw new IllegalStateException("Unknown item");
+            };
+        }
+
+        private static Location location(ByteBuffer buffer) {
+            return new Location(varint(buffer), varint(buffer));
+        }
+
+        private static int varint(ByteBuffer buffer) {
+            var value = 0;
+            for (int shift = 0; ; shift += 7) {
+                final var b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
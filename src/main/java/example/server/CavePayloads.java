@@ -0,0 +1,112 @@
+package example.server;
+
+import example.domain.Response;
+import example.domain.game.BitCave;
+import example.domain.game.Cave;
+import example.domain.game.SimpleCave;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// The cave of a room as sent on connect, encoded the first time a client asks for a variant and shared by every
+// connection after it, so that a connection copies bytes instead of serializing the cave. Compressed caves are
+// deflated once and sent in chunks of at most chunkSize bytes, which the client inflates as they arrive.
+final class CavePayloads {
+    static final int CHUNK_SIZE = 1 << 16;
+
+    private final Cave cave;
+    private final int chunkSize;
+    private final Map<Key, byte[]> payloads = new ConcurrentHashMap<>();
+
+    private record Key(Protocol protocol, boolean compact, boolean compressed) {
+    }
+
+    CavePayloads(Cave cave) {
+        this(cave, CHUNK_SIZE);
+    }
+
+    CavePayloads(Cave cave, int chunkSize) {
+        this.cave = cave;
+        this.chunkSize = chunkSize;
+    }
+
+    // compact only applies to uncompressed JSON, compressed caves and the binary protocol always send bits
+    byte[] payload(Protocol protocol, boolean compact, boolean compressed) {
+        return payloads.computeIfAbsent(new Key(protocol, compact || compressed, compressed), key -> key.compressed()
+                ? chunks(protocol)
+                : protocol.encodeCave(key.compact() ? BitCave.of(cave) : SimpleCave.of(cave)));
+    }
+
+    private byte[] chunks(Protocol protocol) {
+        final var deflated = deflate(BitCave.of(cave).toBytes());
+        final var chunks = Math.max(1, (deflated.length + chunkSize - 1) / chunkSize);
+        final var out = new ByteArrayOutputStream();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            final var data = Arrays.copyOfRange(deflated, chunk * chunkSize, Math.min(deflated.length, (chunk + 1) * chunkSize));
+            out.writeBytes(protocol.encodeCaveChunk(new Response.StateCaveChunk(cave.rows(), cave.columns(), chunk, chunks, data)));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        final var deflater = new Deflater();
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            final var out = new ByteArrayOutputStream(bytes.length / 8);
+            final var buffer = new byte[CHUNK_SIZE];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Client side, inflates the chunks of a cave in order as they arrive
+    static final class Assembler {
+        private Inflater inflater;
+        private byte[] cells;
+        private int filled;
+
+        // the cave once its last chunk has been added, null until then
+        Cave add(Response.StateCaveChunk chunk) throws IOException {
+            if (chunk.chunk() == 0) {
+                if (inflater != null) {
+                    inflater.end();
+                }
+                inflater = new Inflater();
+                cells = new byte[(int) (((long) chunk.rows() * chunk.columns() + 7) >>> 3)];
+                filled = 0;
+            } else if (inflater == null) {
+                throw new IOException("Cave chunk " + chunk.chunk() + " without the first one");
+            }
+
+            inflater.setInput(chunk.data());
+            try {
+                while (filled < cells.length && !inflater.needsInput() && !inflater.finished()) {
+                    filled += inflater.inflate(cells, filled, cells.length - filled);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Malformed cave chunk", e);
+            }
+            if (chunk.chunk() < chunk.chunks() - 1) {
+                return null;
+            }
+
+            inflater.end();
+            inflater = null;
+            if (filled != cells.length) {
+                throw new IOException("Cave truncated after " + filled + " of " + cells.length + " bytes");
+            }
+            return BitCave.fromBytes(chunk.rows(), chunk.columns(), cells);
+        }
+    }
+}
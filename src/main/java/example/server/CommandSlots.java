@@ -0,0 +1,35 @@
+package example.server;
+
+import example.domain.game.Action;
+import example.domain.game.Player;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// The command of every player for the next tick. The first command a player sends is kept and the following ones
+// are dropped until the tick takes it, so memory and tick cost depend on the number of players, not on the traffic.
+final class CommandSlots {
+    private final Map<Player, AtomicReference<Action>> slots = new ConcurrentHashMap<>();
+
+    // the slot of the player, shared by all of its connections
+    AtomicReference<Action> slot(Player player) {
+        return slots.computeIfAbsent(player, ignored -> new AtomicReference<>());
+    }
+
+    // false if the player already has a command for the next tick
+    static boolean offer(AtomicReference<Action> slot, Action action) {
+        return slot.compareAndSet(null, action);
+    }
+
+    // adds the commands to actions and empties the slots
+    void drainTo(List<Action> actions) {
+        for (final var slot : slots.values()) {
+            final var action = slot.getAndSet(null);
+            if (action != null) {
+                actions.add(action);
+            }
+        }
+    }
+}
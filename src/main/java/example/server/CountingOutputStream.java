@@ -0,0 +1,28 @@
+package example.server;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+// adds the number of bytes written through it to a counter
+final class CountingOutputStream extends FilterOutputStream {
+    private final LongAdder bytes;
+
+    CountingOutputStream(OutputStream out, LongAdder bytes) {
+        super(out);
+        this.bytes = bytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        bytes.increment();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        bytes.add(len);
+    }
+}
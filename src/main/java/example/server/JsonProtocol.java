@@ -0,0 +1,149 @@
+package example.server;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import example.domain.Request;
+import example.domain.Response;
+import example.domain.game.Cave;
+import example.domain.game.Item;
+import example.game.Changes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// One JSON object per line. Response.StateLocations and Response.StateDelta are encoded as everything up to health,
+// the per player health and gold are appended for each client.
+final class JsonProtocol implements Protocol {
+    private final ObjectWriter itemLocationsWriter;
+    private final ObjectWriter itemsWriter;
+    private final ObjectWriter playerLocationsWriter;
+    private final ObjectMapper objectMapper;
+
+    JsonProtocol(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.itemLocationsWriter = objectMapper.writerFor(new TypeReference<List<Response.StateLocations.ItemLocation>>() {
+        });
+        this.itemsWriter = objectMapper.writerFor(new TypeReference<List<Item>>() {
+        });
+        this.playerLocationsWriter = objectMapper.writerFor(new TypeReference<List<Response.StateLocations.PlayerLocation>>() {
+        });
+    }
+
+    static byte[] readLine(InputStream is) throws IOException {
+        final var line = new ByteArrayOutputStream();
+        for (; ; ) {
+            final var b = is.read();
+            if (b == -1) {
+                return line.size() == 0 ? null : line.toByteArray();
+            }
+
+            if (b == '\n') {
+                return line.toByteArray();
+            }
+
+            line.write(b);
+        }
+    }
+
+    @Override
+    public Request read(InputStream is) throws IOException {
+        final var line = readLine(is);
+        if (line == null) {
+            return null;
+        }
+
+        return objectMapper.readValue(line, Request.class);
+    }
+
+    void write(OutputStream os, Response response) throws IOException {
+        os.write(objectMapper.writeValueAsBytes(response));
+        os.write('\n');
+        os.flush();
+    }
+
+    @Override
+    public byte[] encodeCave(Cave cave) {
+        return encode(new Response.StateCave(cave));
+    }
+
+    @Override
+    public byte[] encodeCaveChunk(Response.StateCaveChunk chunk) {
+        return encode(chunk);
+    }
+
+    private byte[] encode(Response response) {
+        final var out = new ByteArrayOutputStream();
+        try {
+            objectMapper.writeValue(out, response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.write('\n');
+        return out.toByteArray();
+    }
+
+    // {"type":"L","itemLocations":[...],"playerLocations":[...],
+    @Override
+    public byte[] encodeLocations(List<Response.StateLocations.ItemLocation> itemLocations,
+                                  List<Response.StateLocations.PlayerLocation> playerLocations) {
+        final var out = new ByteArrayOutputStream();
+        try (final var generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartObject();
+            generator.writeStringField("type", "L");
+            generator.writeFieldName("itemLocations");
+            itemLocationsWriter.writeValue(generator, itemLocations);
+            generator.writeFieldName("playerLocations");
+            playerLocationsWriter.writeValue(generator, playerLocations);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.write(',');
+        return out.toByteArray();
+    }
+
+    // {"type":"D","itemsAdded":[...],"itemsRemoved":[...],"playersMoved":[...],
+    @Override
+    public byte[] encodeDelta(Changes changes) {
+        final var itemsAdded = changes.itemsAdded().entrySet().stream().map(entry -> new Response.StateLocations.ItemLocation(entry.getKey(), entry.getValue())).toList();
+        final var itemsRemoved = List.copyOf(changes.itemsRemoved());
+        final var playersMoved = changes.playersMoved().entrySet().stream().map(entry -> new Response.StateLocations.PlayerLocation(entry.getKey(), entry.getValue())).toList();
+
+        final var out = new ByteArrayOutputStream();
+        try (final var generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartObject();
+            generator.writeStringField("type", "D");
+            generator.writeFieldName("itemsAdded");
+            itemLocationsWriter.writeValue(generator, itemsAdded);
+            generator.writeFieldName("itemsRemoved");
+            itemsWriter.writeValue(generator, itemsRemoved);
+            generator.writeFieldName("playersMoved");
+            playerLocationsWriter.writeValue(generator, playersMoved);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.write(',');
+        return out.toByteArray();
+    }
+
+    // players are sent in full within every state
+    @Override
+    public int writeRoster(OutputStream os, Roster roster, int sent) {
+        return sent;
+    }
+
+    // "health":...,"gold":...}
+    @Override
+    public void writeState(OutputStream os, byte[] shared, int health, int gold) throws IOException {
+        os.write(shared);
+        os.write(("\"health\":" + health + ",\"gold\":" + gold + "}\n").getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,269 @@
+package example.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.domain.Request;
+import example.domain.Response;
+import example.domain.configuration.Config;
+import example.domain.configuration.MetricsConfiguration;
+import example.domain.configuration.PlayerConfiguration;
+import example.domain.configuration.RoomConfiguration;
+import example.domain.configuration.TickConfiguration;
+import example.domain.game.Cave;
+import example.domain.game.Direction;
+import example.domain.game.Location;
+import example.domain.game.Player;
+import example.metrics.Histogram;
+import example.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+// Starts a server in this process and connects bots to it over the loopback interface. A bot moves as soon as its
+// previous move shows up in the state, so every bot sends about one command per tick.
+// Usage: LoadGenerator <bots>[,<bots>...] [seconds] [ticks per second] [radius], every bot count gets a new server.
+public final class LoadGenerator {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String ROOM = "load";
+    // a move still not visible after this many states is given up, the bot may be dead or the cell taken by an item
+    private static final int GIVE_UP_STATES = 10;
+
+    public record Result(int bots, long connected, Duration duration, long commands, long states, long lost,
+                         Histogram latency, long tickP50, long tickP99, long broadcastP50, long broadcastP99, long overruns, long skipped) {
+        static String header() {
+            return "bots connected commands/s states/s lost latency_p50_ms latency_p90_ms latency_p99_ms latency_max_ms tick_p50_ms tick_p99_ms broadcast_p50_ms broadcast_p99_ms overruns skipped";
+        }
+
+        @Override
+        public String toString() {
+            final var seconds = duration.toNanos() / 1e9;
+            return String.format("%d %d %.0f %.0f %d %.1f %.1f %.1f %.1f %.1f %.1f %.1f %.1f %d %d", bots, connected, commands / seconds, states / seconds, lost,
+                    millis(latency.percentile(0.5)), millis(latency.percentile(0.9)), millis(latency.percentile(0.99)), millis(latency.max()),
+                    millis(tickP50), millis(tickP99), millis(broadcastP50), millis(broadcastP99), overruns, skipped);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: LoadGenerator <bots>[,<bots>...] [seconds] [ticks per second] [radius]");
+            System.exit(2);
+        }
+
+        // logs warnings only, set before the first logger is created
+        if (System.getProperty("logback.configurationFile") == null) {
+            System.setProperty("logback.configurationFile", "logback-load.xml");
+        }
+
+        final var duration = Duration.ofSeconds(args.length > 1 ? Integer.parseInt(args[1]) : 10);
+        final var ticksPerSecond = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        final var radius = args.length > 3 ? Integer.valueOf(args[3]) : null;
+        System.out.println(Result.header());
+        for (final var bots : Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()) {
+            System.out.println(run(bots, duration, ticksPerSecond, radius));
+        }
+    }
+
+    public static Result run(int bots, Duration duration, int ticksPerSecond, Integer radius) throws IOException, InterruptedException {
+        final var known = new ArrayList<PlayerConfiguration>(bots);
+        for (int i = 0; i < bots; i++) {
+            known.add(new PlayerConfiguration(new Request.Authorize("bot-" + i), new Player.HumanPlayer("bot-" + i)));
+        }
+        // about 32 cells per bot so that crowding does not grow with the bot count
+        final var side = (int) Math.max(32, Math.ceil(Math.sqrt(bots * 32.0)));
+        final var server = new Server(new Config(known, new TickConfiguration(ticksPerSecond, TickConfiguration.Overrun.Skip),
+                List.of(new RoomConfiguration(ROOM, side, side, null)), null, new MetricsConfiguration(null, false), null, null));
+        final var port = freePort();
+        final var serverThread = Thread.ofPlatform().name("load-server").start(() -> server.start(port));
+
+        final var stats = new Stats();
+        final var deadline = System.nanoTime() + duration.toNanos();
+        final var botList = new ArrayList<Bot>(bots);
+        final var threads = new ArrayList<Thread>(bots);
+        for (final var configuration : known) {
+            final var bot = new Bot(configuration, port, radius, deadline, stats);
+            botList.add(bot);
+            threads.add(Thread.startVirtualThread(bot));
+        }
+
+        Thread.sleep(duration);
+        botList.forEach(Bot::close);
+        for (final var thread : threads) {
+            thread.join();
+        }
+        server.stop();
+        serverThread.join();
+
+        final var values = server.metrics().values();
+        final var room = Metrics.name("room", ROOM) + "_";
+        return new Result(bots, stats.connected.sum(), duration, stats.commands.sum(), stats.states.sum(), stats.lost.sum(), stats.latency,
+                values.getOrDefault(room + "tick_nanos_p50", 0L), values.getOrDefault(room + "tick_nanos_p99", 0L),
+                values.getOrDefault(room + "tick_broadcast_nanos_p50", 0L), values.getOrDefault(room + "tick_broadcast_nanos_p99", 0L),
+                values.getOrDefault(room + "tick_overruns", 0L), values.getOrDefault(room + "tick_skipped", 0L));
+    }
+
+    private static int freePort() throws IOException {
+        try (final var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static final class Stats {
+        private final LongAdder connected = new LongAdder();
+        private final LongAdder commands = new LongAdder();
+        private final LongAdder states = new LongAdder();
+        private final LongAdder lost = new LongAdder();
+        // from writing a command to reading the first state in which the bot is where the command moved it
+        private final Histogram latency = new Histogram();
+    }
+
+    private static final class Bot implements Runnable {
+        private static final Logger logger = LoggerFactory.getLogger(Bot.class);
+
+        private final PlayerConfiguration configuration;
+        private final int port;
+        private final Integer radius;
+        private final long deadline;
+        private final Stats stats;
+        private final Random random = new Random();
+        private volatile Socket socket;
+        private volatile boolean closed;
+
+        private Bot(PlayerConfiguration configuration, int port, Integer radius, long deadline, Stats stats) {
+            this.configuration = configuration;
+            this.port = port;
+            this.radius = radius;
+            this.deadline = deadline;
+            this.stats = stats;
+        }
+
+        @Override
+        public void run() {
+            try (final var socket = connect();
+                 final var reader = new BufferedInputStream(socket.getInputStream());
+                 final var writer = new BufferedOutputStream(socket.getOutputStream())) {
+                writer.write(objectMapper.writeValueAsBytes(new Request.Authorize(configuration.authorize().key(),
+                        new Request.Authorize.Options(false, Request.Authorize.Options.Protocol.Binary, true, null, radius))));
+                writer.write('\n');
+                writer.flush();
+                final var line = JsonProtocol.readLine(reader);
+                if (line == null || !(objectMapper.readValue(line, Response.class) instanceof Response.Authorized)) {
+                    throw new IOException("Not authorized");
+                }
+
+                final var client = new BinaryProtocol.Client();
+                if (!(client.read(reader) instanceof Response.StateCave(Cave cave))) {
+                    throw new IOException("Cave expected");
+                }
+                stats.connected.increment();
+                play(client, cave, reader, writer);
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("Bot {} failed", configuration.player().name(), e);
+                }
+            }
+        }
+
+        private void play(BinaryProtocol.Client client, Cave cave, BufferedInputStream reader, BufferedOutputStream writer) throws IOException {
+            final var player = configuration.player();
+            Location target = null;
+            var sent = 0L;
+            var waited = 0;
+            for (Response response; (response = client.read(reader)) != null; ) {
+                if (!(response instanceof Response.StateLocations state)) {
+                    continue;
+                }
+
+                stats.states.increment();
+                Location location = null;
+                for (final var playerLocation : state.playerLocations()) {
+                    if (player.equals(playerLocation.entity())) {
+                        location = playerLocation.location();
+                        break;
+                    }
+                }
+                if (location == null) {
+                    continue;
+                }
+
+                if (target != null) {
+                    if (location.equals(target)) {
+                        stats.latency.record(System.nanoTime() - sent);
+                    } else if (++waited < GIVE_UP_STATES) {
+                        continue;
+                    } else {
+                        stats.lost.increment();
+                    }
+                    target = null;
+                }
+
+                final var direction = Direction.values()[random.nextInt(Direction.values().length)];
+                final var next = switch (direction) {
+                    case Up -> new Location(location.row() - 1, location.column());
+                    case Down -> new Location(location.row() + 1, location.column());
+                    case Left -> new Location(location.row(), location.column() - 1);
+                    case Right -> new Location(location.row(), location.column() + 1);
+                };
+                if (next.row() < 0 || next.row() >= cave.rows() || next.column() < 0 || next.column() >= cave.columns() || cave.rock(next.row(), next.column())) {
+                    continue;
+                }
+
+                target = next;
+                waited = 0;
+                sent = System.nanoTime();
+                BinaryProtocol.Client.writeCommand(writer, direction);
+                stats.commands.increment();
+            }
+        }
+
+        // the server may still be starting
+        private Socket connect() throws IOException {
+            for (; ; ) {
+                try {
+                    final var socket = new Socket("localhost", port);
+                    this.socket = socket;
+                    if (closed) {
+                        socket.close();
+                    }
+                    return socket;
+                } catch (ConnectException e) {
+                    if (closed || System.nanoTime() > deadline) {
+                        throw e;
+                    }
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        private void close() {
+            closed = true;
+            final var current = socket;
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (IOException e) {
+                    logger.warn("Cannot close bot {}", configuration.player().name(), e);
+                }
+            }
+        }
+    }
+}
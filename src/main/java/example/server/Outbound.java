@@ -0,0 +1,44 @@
+package example.server;
+
+import example.domain.configuration.OutboundConfiguration;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// States waiting to be written to one client. The room offers without ever blocking, the writer of the client takes.
+final class Outbound<T> {
+    private final BlockingQueue<T> queue;
+    private final OutboundConfiguration.SlowConsumer slowConsumer;
+    // times the queue was full and the slow consumer policy applied
+    private final LongAdder overflows;
+
+    Outbound(OutboundConfiguration configuration, LongAdder overflows) {
+        this.queue = new ArrayBlockingQueue<>(Objects.requireNonNullElse(configuration.capacity(), OutboundConfiguration.DEFAULT.capacity()));
+        this.slowConsumer = Objects.requireNonNullElse(configuration.slowConsumer(), OutboundConfiguration.DEFAULT.slowConsumer());
+        this.overflows = overflows;
+    }
+
+    // false when the client should be disconnected, only one thread may offer
+    boolean offer(T value) {
+        if (queue.offer(value)) {
+            return true;
+        }
+
+        overflows.increment();
+        return switch (slowConsumer) {
+            case Coalesce -> {
+                queue.clear();
+                queue.add(value);
+                yield true;
+            }
+            case Drop -> true;
+            case Disconnect -> false;
+        };
+    }
+
+    T take() throws InterruptedException {
+        return queue.take();
+    }
+}
@@ -0,0 +1,60 @@
+package example.server;
+
+import example.domain.configuration.PlayerConfiguration;
+import example.domain.game.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Known players by their authorization key. The whole index is replaced at once, a handshake sees either the old
+// or the new one. The first configuration of a key wins.
+final class PlayerRegistry {
+    private volatile Map<String, PlayerConfiguration> byKey;
+
+    PlayerRegistry(Collection<PlayerConfiguration> known) {
+        this.byKey = index(known);
+    }
+
+    // null for unknown keys
+    PlayerConfiguration find(String key) {
+        return byKey.get(key);
+    }
+
+    Collection<PlayerConfiguration> all() {
+        return byKey.values();
+    }
+
+    // the configurations of a replace with players that were not known before and with players whose room changed
+    record Replaced(List<PlayerConfiguration> added, List<PlayerConfiguration> moved) {
+    }
+
+    // swaps in the configurations
+    Replaced replace(Collection<PlayerConfiguration> known) {
+        final var index = index(known);
+        final var rooms = new HashMap<Player.HumanPlayer, String>();
+        byKey.values().forEach(configuration -> rooms.put(configuration.player(), configuration.room()));
+        byKey = index;
+
+        final var added = new ArrayList<PlayerConfiguration>();
+        final var moved = new ArrayList<PlayerConfiguration>();
+        for (final var configuration : index.values()) {
+            if (!rooms.containsKey(configuration.player())) {
+                added.add(configuration);
+            } else if (!Objects.equals(rooms.get(configuration.player()), configuration.room())) {
+                moved.add(configuration);
+            }
+        }
+        return new Replaced(List.copyOf(added), List.copyOf(moved));
+    }
+
+    private static Map<String, PlayerConfiguration> index(Collection<PlayerConfiguration> known) {
+        final var index = new LinkedHashMap<String, PlayerConfiguration>();
+        known.forEach(configuration -> index.putIfAbsent(configuration.authorize().key(), configuration));
+        return index;
+    }
+}
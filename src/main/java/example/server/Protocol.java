@@ -0,0 +1,32 @@
+package example.server;
+
+import example.domain.Request;
+import example.domain.Response;
+import example.domain.game.Cave;
+import example.game.Changes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+// Wire format used after the authorization handshake, which is always a JSON line in both directions.
+// State is encoded in two parts: the shared part once per tick, health and gold for each client.
+sealed interface Protocol permits JsonProtocol, BinaryProtocol {
+    Request read(InputStream is) throws IOException;
+
+    // encoded once per cave and variant, see CavePayloads
+    byte[] encodeCave(Cave cave);
+
+    byte[] encodeCaveChunk(Response.StateCaveChunk chunk);
+
+    byte[] encodeLocations(List<Response.StateLocations.ItemLocation> itemLocations,
+                           List<Response.StateLocations.PlayerLocation> playerLocations);
+
+    byte[] encodeDelta(Changes changes);
+
+    // sends players registered since the client has seen the first sent ones, returns number of players sent
+    int writeRoster(OutputStream os, Roster roster, int sent) throws IOException;
+
+    void writeState(OutputStream os, byte[] shared, int health, int gold) throws IOException;
+}
@@ -0,0 +1,83 @@
+package example.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Values published by a single thread under increasing versions, readers wait for a version newer than the one
+// they have seen without taking any lock. The last capacity versions stay available so that a reader woken late
+// can still catch up on every one of them.
+final class Publication<T> {
+    private final AtomicReferenceArray<Entry<T>> ring;
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private volatile long version;
+
+    private record Entry<T>(long version, T value) {
+    }
+
+    Publication(int capacity, long version, T value) {
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.version = version;
+        ring.set(index(version), new Entry<>(version, value));
+    }
+
+    int capacity() {
+        return ring.length();
+    }
+
+    long version() {
+        return version;
+    }
+
+    // only called by the publishing thread, with the next version
+    void publish(T value) {
+        final var next = version + 1;
+        ring.set(index(next), new Entry<>(next, value));
+        version = next;
+
+        for (Thread waiter; (waiter = waiters.poll()) != null; ) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    // the value of the version, null if it has already been overwritten or is not published yet
+    T get(long version) {
+        final var entry = ring.get(index(version));
+        return entry != null && entry.version() == version ? entry.value() : null;
+    }
+
+    // the latest version once it is newer than lastSeen
+    long await(long lastSeen) throws InterruptedException {
+        for (; ; ) {
+            final var current = version;
+            if (current > lastSeen) {
+                return current;
+            }
+
+            // registered before checking again, a publish in between either sees the waiter or is seen by it
+            waiters.add(Thread.currentThread());
+            if (version > lastSeen) {
+                continue;
+            }
+
+            waiting.incrementAndGet();
+            LockSupport.park(this);
+            waiting.decrementAndGet();
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    // readers parked in await
+    int waiting() {
+        return waiting.get();
+    }
+
+    private int index(long version) {
+        return (int) Math.floorMod(version, (long) ring.length());
+    }
+}
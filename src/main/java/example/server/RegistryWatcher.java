@@ -0,0 +1,82 @@
+package example.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.domain.configuration.Config;
+import example.domain.configuration.PlayerConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.util.function.Consumer;
+
+// Reloads the known players of the registry whenever the configuration file is written or replaced. A file that
+// cannot be read leaves the registry as it is. The configurations of new players and of players whose room changed
+// are handed to changed.
+final class RegistryWatcher implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(RegistryWatcher.class);
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final PlayerRegistry registry;
+    private final Consumer<PlayerConfiguration> changed;
+    private final WatchService watchService;
+
+    RegistryWatcher(Path path, ObjectMapper objectMapper, PlayerRegistry registry, Consumer<PlayerConfiguration> changed) throws IOException {
+        this.path = path.toAbsolutePath();
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+        this.changed = changed;
+        this.watchService = this.path.getFileSystem().newWatchService();
+        this.path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    void start() {
+        Thread.startVirtualThread(this::run);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void run() {
+        try {
+            for (; ; ) {
+                final var key = watchService.take();
+                final var changed = key.pollEvents().stream().anyMatch(event -> path.getFileName().equals(event.context()));
+                key.reset();
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        }
+    }
+
+    void reload() {
+        final Config config;
+        try {
+            config = objectMapper.readValue(Files.readAllBytes(path), Config.class);
+        } catch (IOException e) {
+            logger.warn("Keeping the known players, cannot read {}", path, e);
+            return;
+        }
+
+        if (config.known() == null) {
+            logger.warn("Keeping the known players, none in {}", path);
+            return;
+        }
+
+        final var replaced = registry.replace(config.known());
+        logger.info("Reloaded {} known players, {} new, {} in another room", registry.all().size(), replaced.added().size(), replaced.moved().size());
+        replaced.added().forEach(changed);
+        replaced.moved().forEach(changed);
+    }
+}
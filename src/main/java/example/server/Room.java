@@ -0,0 +1,381 @@
+package example.server;
+
+import example.domain.Response;
+import example.domain.Request;
+import example.domain.configuration.OutboundConfiguration;
+import example.domain.configuration.TickConfiguration;
+import example.domain.game.Action;
+import example.domain.game.Direction;
+import example.domain.game.Player;
+import example.game.Changes;
+import example.game.Game;
+import example.journal.Journal;
+import example.metrics.Histogram;
+import example.metrics.Metrics;
+import example.snapshot.Snapshot;
+import example.snapshot.SnapshotWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// An independent game with its own cave, tick loop and clients. Ticks run on an executor shared by all rooms.
+final class Room {
+    private static final Logger logger = LoggerFactory.getLogger(Room.class);
+    // every n-th tick delta clients receive full locations
+    private static final int KEYFRAME_INTERVAL = 30;
+    // every n-th tick the players are logged at debug level
+    private static final int STATISTICS_INTERVAL = 10;
+
+    // states of the recent ticks, versioned by tick
+    private static final int PUBLISHED_TICKS = 16;
+
+    private final Publication<State> states;
+    private final Roster roster = new Roster();
+    private final BinaryProtocol binaryProtocol = new BinaryProtocol(roster);
+    private final CavePayloads cavePayloads;
+    private final CommandSlots commands = new CommandSlots();
+    // commands of the tick, reused
+    private final List<Action> actions = new ArrayList<>();
+    private final Queue<Player.HumanPlayer> joining = new ConcurrentLinkedQueue<>();
+    // players added to the game since the previous tick
+    private final List<Player> joined = new ArrayList<>();
+    // null when the room is not journaled
+    private final Journal journal;
+    // null when the room is not snapshotted
+    private final SnapshotWriter snapshots;
+    private final String name;
+    private final Game game;
+    private final TickScheduler scheduler;
+    private final OutboundConfiguration outboundConfiguration;
+    // interest radius of clients that do not ask for one, null sends them everything
+    private final Integer radius;
+    // clients filtering by radius, the states are indexed by location only while there are some
+    private final AtomicInteger areaClients = new AtomicInteger();
+    private final AtomicInteger clients = new AtomicInteger();
+    // numbers the connections of the room, part of the names of their metrics
+    private final AtomicLong connections = new AtomicLong();
+    private final Metrics metrics;
+    private final Histogram tickTime;
+    private final Histogram drainTime;
+    private final Histogram stepTime;
+    private final Histogram snapshotTime;
+    private final Histogram broadcastTime;
+    private final Histogram commandsPerTick;
+    private final LongAdder droppedCommands;
+    private final LongAdder outboundOverflows;
+    private final LongAdder slowDisconnects;
+    private long tick;
+
+    // tick is the last tick of the game, 0 for a new one and the tick of the snapshot for a restored one
+    Room(String name, Game game, long tick, TickConfiguration tickConfiguration, OutboundConfiguration outboundConfiguration, Integer radius,
+         Metrics metrics, Journal journal, SnapshotWriter snapshots, ScheduledExecutorService executor) {
+        this.name = name;
+        this.game = game;
+        this.tick = tick;
+        this.states = new Publication<>(PUBLISHED_TICKS, tick, new State(tick, List.of(), List.of(), new Changes(Map.of(), Set.of(), Map.of()), Map.of(), Map.of(), null));
+        this.cavePayloads = new CavePayloads(game.cave());
+        this.journal = journal;
+        this.snapshots = snapshots;
+        this.outboundConfiguration = outboundConfiguration;
+        this.radius = radius;
+        this.scheduler = new TickScheduler(executor, tickConfiguration, this::processCommands);
+
+        this.metrics = metrics;
+        this.tickTime = metrics.histogram(Metrics.name("room", name, "tick_nanos"));
+        this.drainTime = metrics.histogram(Metrics.name("room", name, "tick_drain_nanos"));
+        this.stepTime = metrics.histogram(Metrics.name("room", name, "tick_step_nanos"));
+        this.snapshotTime = metrics.histogram(Metrics.name("room", name, "tick_snapshot_nanos"));
+        this.broadcastTime = metrics.histogram(Metrics.name("room", name, "tick_broadcast_nanos"));
+        this.commandsPerTick = metrics.histogram(Metrics.name("room", name, "commands_per_tick"));
+        this.droppedCommands = metrics.counter(Metrics.name("room", name, "commands_dropped"));
+        this.outboundOverflows = metrics.counter(Metrics.name("room", name, "outbound_overflows"));
+        this.slowDisconnects = metrics.counter(Metrics.name("room", name, "outbound_disconnects"));
+        metrics.gauge(Metrics.name("room", name, "clients"), clients::get);
+        metrics.gauge(Metrics.name("room", name, "tick_overruns"), scheduler::overruns);
+        metrics.gauge(Metrics.name("room", name, "tick_skipped"), scheduler::skipped);
+    }
+
+    String name() {
+        return name;
+    }
+
+    Game game() {
+        return game;
+    }
+
+    BinaryProtocol binaryProtocol() {
+        return binaryProtocol;
+    }
+
+    CavePayloads cavePayloads() {
+        return cavePayloads;
+    }
+
+    void start() {
+        scheduler.start();
+    }
+
+    void stop() {
+        scheduler.stop();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.error("Cannot close the journal of room {}", name, e);
+            }
+        }
+        if (snapshots != null) {
+            snapshots.close();
+        }
+    }
+
+    // places the player in the cave right away unless it is already there, only before the room is started
+    void place(Player player) {
+        if (!game.playerLocation().containsKey(player)) {
+            game.add(player, game::randomLocation);
+            joined.add(player);
+        }
+    }
+
+    // the player is placed in the cave before the next tick, unless it is already there
+    void join(Player.HumanPlayer player) {
+        joining.add(player);
+    }
+
+    // clients parked until the next state is published
+    int waitingClients() {
+        return states.waiting();
+    }
+
+    void processCommands() {
+        final var start = System.nanoTime();
+        tick++;
+
+        // Add players that joined since the previous tick
+        for (Player.HumanPlayer player; (player = joining.poll()) != null; ) {
+            if (!game.playerLocation().containsKey(player)) {
+                game.add(player, game::randomLocation);
+                joined.add(player);
+            }
+        }
+
+        // Process the commands collected since the previous tick
+        actions.clear();
+        commands.drainTo(actions);
+        commandsPerTick.record(actions.size());
+        final var drained = System.nanoTime();
+
+        game.step(actions);
+        if (tick % STATISTICS_INTERVAL == 0 && logger.isDebugEnabled()) {
+            logger.debug("Players of room {} at tick {}:\n{}", name, tick, game.statistics());
+        }
+        final var stepped = System.nanoTime();
+
+        final var itemLocations = game.itemLocation().entrySet().stream().map(entry -> new Response.StateLocations.ItemLocation(entry.getKey(), entry.getValue())).toList();
+        final var playerLocations = game.playerLocation().entrySet().stream().map(entry -> new Response.StateLocations.PlayerLocation(entry.getKey(), entry.getValue())).toList();
+        roster.register(game.playerLocation().keySet());
+
+        final var areaIndex = areaClients.get() > 0 ? new AreaIndex(itemLocations, playerLocations) : null;
+
+        final var changes = game.drainChanges();
+        final var state = new State(tick, itemLocations, playerLocations, changes, Map.copyOf(game.playerHealth()), Map.copyOf(game.playerGold()), areaIndex);
+        if (journal != null) {
+            journal.record(new Journal.Tick(tick, List.copyOf(joined), List.copyOf(actions), changes.itemsAdded()));
+        }
+        joined.clear();
+        if (snapshots != null && snapshots.due(tick)) {
+            snapshots.offer(new Snapshot(tick, game.cave(), game.state()));
+        }
+        final var snapshotted = System.nanoTime();
+
+        // Publish the state and wake up client state threads
+        states.publish(state);
+        final var end = System.nanoTime();
+
+        drainTime.record(drained - start);
+        stepTime.record(stepped - drained);
+        snapshotTime.record(snapshotted - stepped);
+        broadcastTime.record(end - snapshotted);
+        tickTime.record(end - start);
+    }
+
+    void handleClientCommands(InputStream reader, Protocol protocol, Player.HumanPlayer player) {
+        final var slot = commands.slot(player);
+        try (reader) {
+            while (!Thread.currentThread().isInterrupted()) {
+                final var request = protocol.read(reader);
+                if (request == null) {
+                    break;
+                }
+
+                logger.info("Received command {} from {}", request, player);
+
+                if (Objects.requireNonNull(request) instanceof Request.Command(Direction direction)) {
+                    if (!CommandSlots.offer(slot, new Action(player, direction))) {
+                        droppedCommands.increment();
+                    }
+                }
+            }
+        } catch (IOException e) {
+//            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Queues every new state for the client, the writes happen on a thread of their own so that a slow client
+    // does not delay the tick or other clients. With a radius, of the room unless the client asks for its own,
+    // the client receives full locations of what is within the radius of its player every tick.
+    void handleClientState(OutputStream writer, Protocol protocol, Player.HumanPlayer player, boolean delta, Integer radius) {
+        final var outbound = new Outbound<State>(outboundConfiguration, outboundOverflows);
+        final var interest = radius != null ? radius : this.radius;
+        if (interest != null) {
+            areaClients.incrementAndGet();
+        }
+        clients.incrementAndGet();
+        final var clientMetrics = ClientMetrics.register(metrics, Metrics.name("client", name, player.name(), Long.toString(connections.incrementAndGet())));
+        final var counted = new CountingOutputStream(writer, clientMetrics.bytes());
+        final var writerThread = Thread.startVirtualThread(() -> writeStates(counted, protocol, player, delta, interest, outbound, clientMetrics));
+        try (writer) {
+            var lastTick = states.version();
+            while (!Thread.currentThread().isInterrupted() && writerThread.isAlive()) {
+                final var latest = states.await(lastTick);
+                // ticks no longer published are skipped, the writer sends full locations after the gap
+                for (var version = Math.max(lastTick + 1, latest - states.capacity() + 1); version <= latest; version++) {
+                    final var currentState = states.get(version);
+                    if (currentState != null && !outbound.offer(currentState)) {
+                        logger.info("Disconnecting slow client {}", player);
+                        slowDisconnects.increment();
+                        return;
+                    }
+                }
+                lastTick = latest;
+            }
+        } catch (IOException | InterruptedException e) {
+//            Thread.currentThread().interrupt();
+        } finally {
+            writerThread.interrupt();
+            if (interest != null) {
+                areaClients.decrementAndGet();
+            }
+            clients.decrementAndGet();
+            clientMetrics.unregister(metrics);
+        }
+    }
+
+    private void writeStates(OutputStream writer, Protocol protocol, Player.HumanPlayer player, boolean delta, Integer radius, Outbound<State> outbound,
+                             ClientMetrics clientMetrics) {
+        try {
+            var lastTick = -1L;
+            var rosterSent = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                final var currentState = outbound.take();
+                // Send the new state to the client, changes only if it has seen the previous tick
+                final var keyframe = !delta || currentState.tick() != lastTick + 1 || currentState.tick() % KEYFRAME_INTERVAL == 0;
+                final var start = System.nanoTime();
+                final var shared = radius != null ? currentState.locations(protocol, player, radius) : keyframe ? currentState.locations(protocol) : currentState.delta(protocol);
+                clientMetrics.serialization().record(System.nanoTime() - start);
+                rosterSent = protocol.writeRoster(writer, roster, rosterSent);
+                protocol.writeState(
+                        writer,
+                        shared,
+                        currentState.playerHealths().getOrDefault(player, 0),
+                        currentState.playerGolds().getOrDefault(player, 0)
+                );
+                writer.flush();
+                clientMetrics.messages().increment();
+                lastTick = currentState.tick();
+            }
+        } catch (IOException | InterruptedException e) {
+//            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Named after the connection, so that neither a second connection of the same player nor a player whose name
+    // sanitizes the same way shares them, and only these are removed when the connection closes
+    private record ClientMetrics(String prefix, LongAdder bytes, LongAdder messages, Histogram serialization) {
+        private static ClientMetrics register(Metrics metrics, String prefix) {
+            return new ClientMetrics(prefix, metrics.counter(prefix + "_bytes"), metrics.counter(prefix + "_messages"), metrics.histogram(prefix + "_serialization_nanos"));
+        }
+
+        private void unregister(Metrics metrics) {
+            metrics.remove(prefix + "_bytes");
+            metrics.remove(prefix + "_messages");
+            metrics.remove(prefix + "_serialization_nanos");
+        }
+    }
+
+    private static final class State {
+        private final long tick;
+        private final List<Response.StateLocations.ItemLocation> itemLocations;
+        private final List<Response.StateLocations.PlayerLocation> playerLocations;
+        private final Changes changes;
+        private final Map<Player, Integer> playerHealths;
+        private final Map<Player, Integer> playerGolds;
+        private final AreaIndex areaIndex;
+        // encoded on first use by each protocol, delta clients only need locations every KEYFRAME_INTERVAL ticks
+        private final Map<Protocol, byte[]> locations = new ConcurrentHashMap<>();
+        private final Map<Protocol, byte[]> deltas = new ConcurrentHashMap<>();
+
+        private State(long tick,
+                      List<Response.StateLocations.ItemLocation> itemLocations,
+                      List<Response.StateLocations.PlayerLocation> playerLocations,
+                      Changes changes,
+                      Map<Player, Integer> playerHealths,
+                      Map<Player, Integer> playerGolds,
+                      AreaIndex areaIndex) {
+            this.tick = tick;
+            this.itemLocations = itemLocations;
+            this.playerLocations = playerLocations;
+            this.changes = changes;
+            this.playerHealths = playerHealths;
+            this.playerGolds = playerGolds;
+            this.areaIndex = areaIndex;
+        }
+
+        private long tick() {
+            return tick;
+        }
+
+        private byte[] locations(Protocol protocol) {
+            return locations.computeIfAbsent(protocol, ignored -> protocol.encodeLocations(itemLocations, playerLocations));
+        }
+
+        // encoded for every client, everything if the player is not in the state yet
+        private byte[] locations(Protocol protocol, Player player, int radius) {
+            // indexed by the tick unless the client is the first one with a radius
+            final var index = areaIndex != null ? areaIndex : new AreaIndex(itemLocations, playerLocations);
+            final var center = index.location(player);
+            if (center == null) {
+                return locations(protocol);
+            }
+
+            return protocol.encodeLocations(index.items(center, radius), index.players(center, radius));
+        }
+
+        private byte[] delta(Protocol protocol) {
+            return deltas.computeIfAbsent(protocol, ignored -> protocol.encodeDelta(changes));
+        }
+
+        private Map<Player, Integer> playerHealths() {
+            return playerHealths;
+        }
+
+        private Map<Player, Integer> playerGolds() {
+            return playerGolds;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package example.server;
+
+import example.domain.game.Player;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Small ids assigned to players for the lifetime of the server, ids are never reused.
+// Players are registered by the commands processing thread only, the ids are read by client threads.
+final class Roster {
+    private final Map<Player, Integer> ids = new ConcurrentHashMap<>();
+    private final List<Player> players = new CopyOnWriteArrayList<>();
+
+    void register(Collection<Player> players) {
+        for (final var player : players) {
+            if (!ids.containsKey(player)) {
+                this.players.add(player);
+                ids.put(player, this.players.size() - 1);
+            }
+        }
+    }
+
+    int id(Player player) {
+        return ids.get(player);
+    }
+
+    Player player(int id) {
+        return players.get(id);
+    }
+
+    int size() {
+        return players.size();
+    }
+}
@@ -8,18 +8,32 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import example.domain.Request;
 import example.domain.Response;
 import example.domain.configuration.Config;
+import example.domain.configuration.MetricsConfiguration;
+import example.domain.configuration.OutboundConfiguration;
 import example.domain.configuration.PlayerConfiguration;
-import example.domain.game.Action;
-import example.domain.game.Direction;
+import example.domain.configuration.RoomConfiguration;
+import example.domain.configuration.SnapshotConfiguration;
+import example.domain.configuration.TickConfiguration;
+import example.domain.game.Cave;
+import example.domain.game.CaveGenerator;
 import example.domain.game.Player;
 import example.game.Game;
+import example.journal.Journal;
+import example.metrics.Metrics;
+import example.metrics.MetricsHttpServer;
+import example.metrics.MetricsMBean;
+import example.snapshot.Snapshot;
+import example.snapshot.SnapshotWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,90 +41,189 @@ public class Server {
     private static final Logger logger = LoggerFactory.getLogger(Server.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
-    private final AtomicReference<State> state = new AtomicReference<>(new State(List.of(), List.of(), Map.of(), Map.of()));
-    private final BlockingQueue<Action> actionsQueue = new LinkedBlockingQueue<>();
-    private final Lock stateLock = new ReentrantLock();
-    private final Condition stateUpdated = stateLock.newCondition();
-    private final Game game;
+    private static final JsonProtocol jsonProtocol = new JsonProtocol(objectMapper);
+    private static final RoomConfiguration DEFAULT_ROOM = new RoomConfiguration("default", 20, 30, null);
 
-    private final Collection<PlayerConfiguration> known;
+    // rooms tick on a shared pool bounded by the number of cores instead of a thread per room
+    private final ScheduledExecutorService executor;
+    private final Map<String, Room> rooms = new LinkedHashMap<>();
+    private final Room defaultRoom;
 
-    public Server(Game game, Path path) throws IOException {
-        final var config = objectMapper.readValue(Files.readAllBytes(path), Config.class);
-        this.known = config.known();
-        this.game = game;
-        known.forEach((configuration) -> game.add(configuration.player(), game::randomLocation));
-        game.render();
+    private final PlayerRegistry registry;
+    // the room every known player was placed in
+    private final Map<Player.HumanPlayer, Room> placed = new ConcurrentHashMap<>();
+    private final Metrics metrics = new Metrics();
+    private final MetricsConfiguration metricsConfiguration;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final LongAdder accepted = metrics.counter("connections_accepted");
+    private final LongAdder unauthorized = metrics.counter("connections_unauthorized");
+    // the configuration file the known players are reloaded from, null if there is none
+    private final Path path;
+    private volatile ServerSocket serverSocket;
+    private volatile boolean stopped;
+
+    public Server(Path path) throws IOException {
+        this(objectMapper.readValue(Files.readAllBytes(path), Config.class), path);
+    }
+
+    public Server(Config config) {
+        this(config, null);
+    }
+
+    private Server(Config config, Path path) {
+        this.registry = new PlayerRegistry(config.known());
+        this.path = path;
+        this.metricsConfiguration = Objects.requireNonNullElse(config.metrics(), MetricsConfiguration.DEFAULT);
+        metrics.gauge("connections", connections::get);
+        final var roomConfigurations = config.rooms() == null || config.rooms().isEmpty() ? List.of(DEFAULT_ROOM) : config.rooms();
+        final var snapshotInterval = config.snapshot() == null ? SnapshotConfiguration.DEFAULT_INTERVAL
+                : Objects.requireNonNullElse(config.snapshot().interval(), SnapshotConfiguration.DEFAULT_INTERVAL);
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval " + snapshotInterval + " is not a positive number of ticks");
+        }
+        this.executor = Executors.newScheduledThreadPool(Math.min(roomConfigurations.size(), Runtime.getRuntime().availableProcessors()));
+        final var outbound = Objects.requireNonNullElse(config.outbound(), OutboundConfiguration.DEFAULT);
+        for (final var roomConfiguration : roomConfigurations) {
+            final var name = roomConfiguration.name();
+            final var snapshotPath = config.snapshot() == null ? null : Path.of(config.snapshot().directory()).resolve(name + ".snapshot");
+            final var snapshot = snapshotPath == null ? null : restore(snapshotPath);
+            final var tick = Objects.requireNonNullElse(roomConfiguration.tick(), Objects.requireNonNullElse(config.tick(), TickConfiguration.DEFAULT));
+            final var seed = Objects.requireNonNullElseGet(roomConfiguration.seed(), ThreadLocalRandom.current()::nextLong);
+            // the drunken walk takes several times as long on large caves
+            final var cave = snapshot == null ? CaveGenerator.generateUsingCellularAutomata(roomConfiguration.rows(), roomConfiguration.columns()) : snapshot.cave();
+            // a restored game draws from a random of its own for the tick, the seed alone would replay the draws of the first ticks
+            final var game = snapshot == null ? new Game(cave, seed) : new Game(cave, snapshot.state(), new Random(new SplittableRandom(seed + snapshot.tick()).nextLong()));
+            if (Boolean.TRUE.equals(roomConfiguration.parallelStep())) {
+                game.parallel(ForkJoinPool.commonPool());
+            }
+            // a journal replays from a new game, it cannot start in the middle of a restored one
+            if (config.journal() != null && snapshot != null) {
+                logger.warn("Room {} is not journaled, it is restored from a snapshot", name);
+            }
+            final var journal = config.journal() == null || snapshot != null ? null : journal(Path.of(config.journal()), name, seed, cave);
+            final var snapshots = snapshotPath == null ? null : new SnapshotWriter(snapshotPath, snapshotInterval, metrics.counter(Metrics.name("room", name, "snapshots_skipped")));
+            final var room = new Room(name, game, snapshot == null ? 0 : snapshot.tick(), tick, outbound, roomConfiguration.radius(), metrics, journal, snapshots, executor);
+            final var sizes = Player.Dragon.Size.values();
+            for (int id = 0; id < Objects.requireNonNullElse(roomConfiguration.dragons(), 0); id++) {
+                room.place(new Player.Dragon(id, sizes[id % sizes.length]));
+            }
+            rooms.put(name, room);
+        }
+        this.defaultRoom = rooms.values().iterator().next();
+
+        registry.all().forEach((configuration) -> {
+            final var room = configuration.room() == null ? defaultRoom : rooms.get(configuration.room());
+            if (room == null) {
+                throw new IllegalArgumentException("Unknown room " + configuration.room() + " of " + configuration.player());
+            }
+            if (placed.putIfAbsent(configuration.player(), room) == null) {
+                room.place(configuration.player());
+            }
+        });
+        if (logger.isDebugEnabled()) {
+            rooms.values().forEach(room -> logger.debug("Cave of room {}:\n{}", room.name(), room.game().render()));
+        }
     }
 
     public void start(int port) {
-        // Start the commands processing thread
-        final var threadProcessCommand = Executors.defaultThreadFactory().newThread(this::processCommands);
-        threadProcessCommand.start();
+        // Start the commands processing of every room
+        rooms.values().forEach(Room::start);
 
-        try (final var serverSocket = new ServerSocket(port)) {
-            logger.info("Server started on port {}", port);
+        final var mbean = registerMBean(port);
+        try (final var serverSocket = new ServerSocket(port);
+             final var watcher = path == null ? null : new RegistryWatcher(path, objectMapper, registry, this::place);
+             final var metricsServer = metricsConfiguration.port() == null ? null : new MetricsHttpServer(metrics, metricsConfiguration.port())) {
+            this.serverSocket = serverSocket;
+            if (stopped) {
+                return;
+            }
+            if (watcher != null) {
+                watcher.start();
+            }
+            if (metricsServer != null) {
+                metricsServer.start();
+                logger.info("Metrics served on http://localhost:{}/metrics", metricsServer.port());
+            }
+            logger.info("Server started on port {} with rooms {}", port, rooms.keySet());
 
             while (!Thread.currentThread().isInterrupted()) {
                 final var clientSocket = serverSocket.accept();
+                accepted.increment();
                 logger.info("Client connected: {}", clientSocket.getRemoteSocketAddress());
 
                 // Start a client connection thread
                 Thread.startVirtualThread(() -> handleClientConnection(clientSocket));
             }
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            if (!stopped) {
+                throw new RuntimeException(e);
+            }
         } finally {
-            threadProcessCommand.interrupt();
+            if (mbean != null) {
+                unregisterMBean(mbean);
+            }
+            rooms.values().forEach(Room::stop);
+            executor.shutdownNow();
+        }
+    }
+
+    // makes start return, clients already connected stay until they disconnect
+    public void stop() {
+        stopped = true;
+        final var current = serverSocket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.warn("Cannot close the server socket", e);
+            }
         }
     }
 
+    Metrics metrics() {
+        return metrics;
+    }
+
     private void handleClientConnection(Socket clientSocket) {
+        connections.incrementAndGet();
         try (final var is = clientSocket.getInputStream();
-             final var isr = new InputStreamReader(is);
-             final var reader = new BufferedReader(isr);
+             final var reader = new BufferedInputStream(is);
              final var os = clientSocket.getOutputStream();
-             final var osr = new OutputStreamWriter(os);
-             final var writer = new BufferedWriter(osr)) {
-            // handle authorization
-            final var line = reader.readLine();
-            if (line == null) {
+             final var writer = new BufferedOutputStream(os)) {
+            // handle authorization, always a JSON line
+            final var request = jsonProtocol.read(reader);
+            if (request == null) {
                 return;
             }
 
-            final Player.HumanPlayer player;
-            final var request = objectMapper.readValue(line, Request.class);
-            if (Objects.requireNonNull(request) instanceof Request.Authorize authorize) {
-                player = known.stream()
-                        .filter(configuration -> configuration.authorize().equals(authorize))
-                        .findAny()
-                        .map(PlayerConfiguration::player)
-                        .orElse(null);
-                if (player == null) {
-                    final var json = objectMapper.writeValueAsString(new Response.Unauthorized());
-                    writer.write(json);
-                    writer.newLine();
-                    writer.flush();
-                    return;
-                }
-
-                final var json = objectMapper.writeValueAsString(new Response.Authorized(player));
-                writer.write(json);
-                writer.newLine();
-                writer.flush();
-            } else {
+            if (!(request instanceof Request.Authorize authorize)) {
                 return;
             }
 
-            {
-                final var json = objectMapper.writeValueAsString(new Response.StateCave(game.cave()));
-                writer.write(json);
-                writer.newLine();
-                writer.flush();
+            final var options = Objects.requireNonNullElse(authorize.options(), new Request.Authorize.Options(null, null, null, null, null));
+            final var configuration = registry.find(authorize.key());
+            final var room = configuration == null ? null : route(configuration, options);
+            if (room == null) {
+                unauthorized.increment();
+                jsonProtocol.write(writer, new Response.Unauthorized());
+                return;
             }
 
-            Thread t1 = Thread.startVirtualThread(() -> handleClientCommands(reader, player));
-            Thread t2 = Thread.startVirtualThread(() -> handleClientState(writer, player));
+            final var player = configuration.player();
+            jsonProtocol.write(writer, new Response.Authorized(player));
+            room.join(player);
+
+            final var delta = Boolean.TRUE.equals(options.delta());
+            final Protocol protocol = switch (Objects.requireNonNullElse(options.protocol(), Request.Authorize.Options.Protocol.Json)) {
+                case Json -> jsonProtocol;
+                case Binary -> room.binaryProtocol();
+            };
+
+            writer.write(room.cavePayloads().payload(protocol, Boolean.TRUE.equals(options.compactCave()), Boolean.TRUE.equals(options.compressCave())));
+            writer.flush();
+
+            Thread t1 = Thread.startVirtualThread(() -> room.handleClientCommands(reader, protocol, player));
+            Thread t2 = Thread.startVirtualThread(() -> room.handleClientState(writer, protocol, player, delta, options.radius()));
             t1.join();
             t2.join();
         } catch (IOException e) {
@@ -119,91 +232,89 @@ public class Server {
         } catch (InterruptedException e) {
             logger.error("Commands processing thread interrupted", e);
             Thread.currentThread().interrupt();
+        } finally {
+            connections.decrementAndGet();
         }
     }
 
-    private void processCommands() {
+    // null if there is no snapshot yet
+    private static Snapshot restore(Path path) {
         try {
-            while (!Thread.currentThread().isInterrupted()) {
-                // Wait for one second
-                Thread.sleep(1000);
-
-                // Process all collected commands
-                final var actions = new LinkedList<Action>();
-                actionsQueue.drainTo(actions);
-
-                game.step(actions);
-                game.statistics();
-
-                final var itemLocations = game.itemLocation().entrySet().stream().map(entry -> new Response.StateLocations.ItemLocation(entry.getKey(), entry.getValue())).toList();
-                final var playerLocations = game.playerLocation().entrySet().stream().map(entry -> new Response.StateLocations.PlayerLocation(entry.getKey(), entry.getValue())).toList();
-
-                // Update the state
-                stateLock.lock();
-                try {
-                    state.set(new State(itemLocations, playerLocations, game.playerHealth(), game.playerGold()));
-                    // Notify client state threads
-                    stateUpdated.signalAll();
-                } finally {
-                    stateLock.unlock();
-                }
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
             }
-        } catch (InterruptedException e) {
-            logger.error("Commands processing thread interrupted", e);
-            Thread.currentThread().interrupt();
+            final var start = System.nanoTime();
+            final var snapshot = Snapshot.read(path);
+            if (snapshot != null) {
+                logger.info("Restored {} players from tick {} of {} in {} ms", snapshot.state().players().length, snapshot.tick(), path,
+                        (System.nanoTime() - start) / 1_000_000);
+            }
+            return snapshot;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    private void handleClientCommands(BufferedReader reader, Player.HumanPlayer player) {
-        try (reader) {
-            while (!Thread.currentThread().isInterrupted()) {
-                final var line = reader.readLine();
-                if (line == null) {
-                    break;
-                }
+    private static Journal journal(Path directory, String room, long seed, Cave cave) {
+        try {
+            Files.createDirectories(directory);
+            final var path = directory.resolve(room + "-" + System.currentTimeMillis() + ".journal");
+            logger.info("Journaling room {} to {}", room, path);
+            return Journal.create(path, seed, cave);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-                final var request = objectMapper.readValue(line, Request.class);
-                logger.info("Received command {} from {}", request, player);
+    // null when disabled
+    private ObjectName registerMBean(int port) {
+        if (Boolean.FALSE.equals(metricsConfiguration.jmx())) {
+            return null;
+        }
 
-                if (Objects.requireNonNull(request) instanceof Request.Command(Direction direction)) {
-                    actionsQueue.put(new Action(player, direction));
-                }
-            }
-        } catch (IOException | InterruptedException e) {
-//            Thread.currentThread().interrupt();
+        try {
+            final var name = new ObjectName("example:type=Metrics,port=" + port);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(metrics), name);
+            return name;
+        } catch (JMException e) {
+            logger.warn("Metrics are not available over JMX", e);
+            return null;
         }
     }
 
-    private void handleClientState(BufferedWriter writer, Player.HumanPlayer player) {
-        try (writer) {
-            while (!Thread.currentThread().isInterrupted()) {
-                stateLock.lock();
-                try {
-                    stateUpdated.await();
-                    // Send the new state to the client
-                    final var currentState = state.get();
-                    final var playerState = new Response.StateLocations(
-                            currentState.itemLocations(),
-                            currentState.playerLocations(),
-                            currentState.playerHealths().getOrDefault(player, 0),
-                            currentState.playerGolds().getOrDefault(player, 0)
-                    );
-                    final var stateJson = objectMapper.writeValueAsString(playerState);
-                    writer.write(stateJson);
-                    writer.newLine();
-                    writer.flush();
-                } finally {
-                    stateLock.unlock();
-                }
-            }
-        } catch (IOException | InterruptedException e) {
-//            Thread.currentThread().interrupt();
+    private static void unregisterMBean(ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            logger.warn("Cannot unregister metrics", e);
         }
     }
 
-    private record State(List<Response.StateLocations.ItemLocation> itemLocations,
-                         List<Response.StateLocations.PlayerLocation> playerLocations,
-                         Map<Player, Integer> playerHealths,
-                         Map<Player, Integer> playerGolds) {
+    // Players added to the configuration of a running server join their room before anyone connects as them. A player
+    // cannot leave a game, so one whose room changed stays in the room it was placed in.
+    private void place(PlayerConfiguration configuration) {
+        final var room = configuration.room() == null ? defaultRoom : rooms.get(configuration.room());
+        if (room == null) {
+            logger.warn("Unknown room {} of {}", configuration.room(), configuration.player());
+            return;
+        }
+        final var current = placed.putIfAbsent(configuration.player(), room);
+        if (current == null) {
+            room.join(configuration.player());
+        } else if (current != room) {
+            logger.warn("Refused to move {} to room {}, it stays in room {}", configuration.player(), room.name(), current.name());
+        }
+    }
+
+    // The room the player was placed in, null if there is none. A handshake asking for another room is refused,
+    // otherwise the player would live in two games at once.
+    private Room route(PlayerConfiguration configuration, Request.Authorize.Options options) {
+        final var room = placed.get(configuration.player());
+        if (options.room() != null && room != null && !options.room().equals(room.name())) {
+            logger.warn("Refused {} asking for room {} instead of {}", configuration.player(), options.room(), room.name());
+            return null;
+        }
+
+        return room;
     }
 }
@@ -0,0 +1,91 @@
+package example.server;
+
+import example.domain.configuration.TickConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs ticks on fixed deadlines, start + n * period, so the time spent in a tick does not shift the following ones.
+final class TickScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(TickScheduler.class);
+    // catching up never runs more than this many ticks back to back, older deadlines are skipped
+    private static final int MAX_CATCH_UP = 5;
+
+    private final ScheduledExecutorService executor;
+    private final long period;
+    private final TickConfiguration.Overrun overrun;
+    private final Runnable tick;
+    private final AtomicLong overruns = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile ScheduledFuture<?> future;
+    private volatile boolean stopped;
+    private long deadline;
+
+    TickScheduler(ScheduledExecutorService executor, TickConfiguration configuration, Runnable tick) {
+        if (configuration.ticksPerSecond() == null || configuration.ticksPerSecond() <= 0) {
+            throw new IllegalArgumentException("Ticks per second must be positive: " + configuration.ticksPerSecond());
+        }
+
+        this.executor = executor;
+        this.period = TimeUnit.SECONDS.toNanos(1) / configuration.ticksPerSecond();
+        this.overrun = configuration.overrun() == null ? TickConfiguration.Overrun.Skip : configuration.overrun();
+        this.tick = tick;
+    }
+
+    void start() {
+        deadline = System.nanoTime() + period;
+        future = executor.schedule(this::run, period, TimeUnit.NANOSECONDS);
+    }
+
+    void stop() {
+        stopped = true;
+        final var current = future;
+        if (current != null) {
+            current.cancel(false);
+        }
+    }
+
+    // ticks that took longer than the period
+    long overruns() {
+        return overruns.get();
+    }
+
+    // deadlines that were missed and never ticked
+    long skipped() {
+        return skipped.get();
+    }
+
+    private void run() {
+        final var started = System.nanoTime();
+        try {
+            tick.run();
+        } catch (RuntimeException e) {
+            logger.error("Tick failed", e);
+        }
+        final var finished = System.nanoTime();
+
+        if (finished - started > period) {
+            overruns.incrementAndGet();
+            logger.warn("Tick took {} ms, budget is {} ms", TimeUnit.NANOSECONDS.toMillis(finished - started), TimeUnit.NANOSECONDS.toMillis(period));
+        }
+
+        deadline += period;
+        final var behind = (finished - deadline) / period;
+        if (behind > 0) {
+            final var skip = switch (overrun) {
+                case CatchUp -> Math.max(behind - MAX_CATCH_UP, 0);
+                case Skip -> behind;
+            };
+            deadline += skip * period;
+            skipped.addAndGet(skip);
+        }
+
+        if (!stopped) {
+            future = executor.schedule(this::run, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package example.simulation;
+
+import example.domain.game.Direction;
+import example.domain.game.Location;
+import example.domain.game.Player;
+import example.game.Game;
+
+import java.util.Map;
+import java.util.Random;
+
+// Decides the move of a scripted player every tick, null stays in place. Policies are shared by all games and
+// threads, anything random must be drawn from the random passed in so games stay reproducible.
+@FunctionalInterface
+public interface Policy {
+    Direction move(Game game, Player.HumanPlayer player, Random random);
+
+    Policy IDLE = (game, player, random) -> null;
+
+    Policy RANDOM = (game, player, random) -> Direction.values()[random.nextInt(Direction.values().length)];
+
+    // towards the nearest item, around rocks only by chance
+    Policy GREEDY = (game, player, random) -> {
+        final var location = game.playerLocation().get(player);
+        Location nearest = null;
+        var distance = Integer.MAX_VALUE;
+        for (final var itemLocation : game.itemLocation().values()) {
+            final var d = Math.abs(itemLocation.row() - location.row()) + Math.abs(itemLocation.column() - location.column());
+            if (d < distance) {
+                distance = d;
+                nearest = itemLocation;
+            }
+        }
+        if (nearest == null) {
+            return RANDOM.move(game, player, random);
+        }
+
+        final var vertical = nearest.row() < location.row() ? Direction.Up : Direction.Down;
+        final var horizontal = nearest.column() < location.column() ? Direction.Left : Direction.Right;
+        final var preferred = nearest.row() == location.row() ? horizontal
+                : nearest.column() == location.column() ? vertical
+                : random.nextBoolean() ? vertical : horizontal;
+        final var row = location.row() + (preferred == Direction.Up ? -1 : preferred == Direction.Down ? 1 : 0);
+        final var column = location.column() + (preferred == Direction.Left ? -1 : preferred == Direction.Right ? 1 : 0);
+        return game.cave().rock(row, column) ? RANDOM.move(game, player, random) : preferred;
+    };
+
+    Map<String, Policy> BUILT_IN = Map.of("idle", IDLE, "random", RANDOM, "greedy", GREEDY);
+}
@@ -0,0 +1,140 @@
+package example.simulation;
+
+import example.domain.game.Action;
+import example.domain.game.CaveGenerator;
+import example.domain.game.Player;
+import example.game.Game;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+// Plays independent games without a server, one per core at a time, every player scripted by a policy.
+// The seed decides every game: the caves, the items, the moves of the policies, but not which core plays what.
+// Usage: Simulation [games] [ticks] [players per policy] [seed] [policy,...] [rows] [columns]
+public final class Simulation {
+    public record Settings(int games, int ticks, int playersPerPolicy, long seed, int rows, int columns) {
+    }
+
+    // diedAt is the tick in which the health of the player dropped to zero, 0 if it survived
+    public record Outcome(String policy, int gold, int health, int diedAt) {
+    }
+
+    // alive is the share of players alive after each quarter of the ticks
+    public record Summary(String policy, int players, double[] alive, double meanGold, int goldP50, int goldP90, int goldMax) {
+        @Override
+        public String toString() {
+            return String.format("%-8s %7d %6.3f %6.3f %6.3f %6.3f %9.1f %6d %6d %6d", policy, players, alive[0], alive[1], alive[2], alive[3],
+                    meanGold, goldP50, goldP90, goldMax);
+        }
+    }
+
+    public static void main(String[] args) {
+        final var settings = new Settings(
+                args.length > 0 ? Integer.parseInt(args[0]) : 64,
+                args.length > 1 ? Integer.parseInt(args[1]) : 10_000,
+                args.length > 2 ? Integer.parseInt(args[2]) : 4,
+                args.length > 3 ? Long.parseLong(args[3]) : 1,
+                args.length > 5 ? Integer.parseInt(args[5]) : 40,
+                args.length > 6 ? Integer.parseInt(args[6]) : 60);
+        final var policies = new LinkedHashMap<String, Policy>();
+        for (final var name : (args.length > 4 ? args[4] : "random,greedy").split(",")) {
+            final var policy = Policy.BUILT_IN.get(name);
+            if (policy == null) {
+                System.err.println("Unknown policy " + name + ", known are " + Policy.BUILT_IN.keySet());
+                System.exit(2);
+            }
+            policies.put(name, policy);
+        }
+
+        final var start = System.nanoTime();
+        final var outcomes = run(settings, policies);
+        final var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        final var ticks = (long) settings.games() * settings.ticks();
+        System.out.printf("%d games of %d ticks in %d ms, %.0f ticks/s%n", settings.games(), settings.ticks(), elapsed.toMillis(), ticks * 1e9 / elapsed.toNanos());
+        System.out.println("policy   players alive25 alive50 alive75 alive  mean_gold gold50 gold90 gold_max");
+        summarize(outcomes, settings.ticks()).forEach(System.out::println);
+    }
+
+    // the outcomes of all games in the order of the games, within a game in the order of the policies
+    public static List<Outcome> run(Settings settings, Map<String, Policy> policies) {
+        final var seeds = new SplittableRandom(settings.seed()).longs(settings.games()).toArray();
+        return IntStream.range(0, settings.games()).parallel()
+                .mapToObj(game -> play(settings, policies, seeds[game]))
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    static List<Outcome> play(Settings settings, Map<String, Policy> policies, long seed) {
+        final var game = new Game(CaveGenerator.generateUsingDrunkenWalk(settings.rows(), settings.columns(), seed), seed);
+        final var random = new Random(~seed);
+        final var names = new ArrayList<String>();
+        final var players = new ArrayList<Player.HumanPlayer>();
+        final var scripts = new ArrayList<Policy>();
+        policies.forEach((name, policy) -> {
+            for (int i = 0; i < settings.playersPerPolicy(); i++) {
+                final var player = new Player.HumanPlayer(name + "-" + i);
+                game.add(player, game::randomLocation);
+                names.add(name);
+                players.add(player);
+                scripts.add(policy);
+            }
+        });
+
+        final var diedAt = new int[players.size()];
+        final var actions = new ArrayList<Action>(players.size());
+        for (int tick = 1; tick <= settings.ticks(); tick++) {
+            actions.clear();
+            for (int i = 0; i < players.size(); i++) {
+                if (diedAt[i] == 0) {
+                    final var direction = scripts.get(i).move(game, players.get(i), random);
+                    if (direction != null) {
+                        actions.add(new Action(players.get(i), direction));
+                    }
+                }
+            }
+            game.step(actions);
+
+            for (int i = 0; i < players.size(); i++) {
+                if (diedAt[i] == 0 && game.health(players.get(i)) == 0) {
+                    diedAt[i] = tick;
+                }
+            }
+        }
+
+        final var outcomes = new ArrayList<Outcome>(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            outcomes.add(new Outcome(names.get(i), game.gold(players.get(i)), game.health(players.get(i)), diedAt[i]));
+        }
+        return outcomes;
+    }
+
+    public static List<Summary> summarize(List<Outcome> outcomes, int ticks) {
+        final var byPolicy = new LinkedHashMap<String, List<Outcome>>();
+        outcomes.forEach(outcome -> byPolicy.computeIfAbsent(outcome.policy(), ignored -> new ArrayList<>()).add(outcome));
+
+        final var summaries = new ArrayList<Summary>();
+        byPolicy.forEach((policy, list) -> {
+            final var gold = list.stream().mapToInt(Outcome::gold).sorted().toArray();
+            final var alive = new double[4];
+            for (int quarter = 0; quarter < 4; quarter++) {
+                final var tick = quarter == 3 ? Integer.MAX_VALUE : ticks * (quarter + 1) / 4;
+                alive[quarter] = (double) list.stream().filter(outcome -> outcome.diedAt() == 0 || outcome.diedAt() > tick).count() / list.size();
+            }
+            summaries.add(new Summary(policy, list.size(), alive, Arrays.stream(gold).average().orElse(0),
+                    percentile(gold, 0.5), percentile(gold, 0.9), gold.length == 0 ? 0 : gold[gold.length - 1]));
+        });
+        return summaries;
+    }
+
+    private static int percentile(int[] sorted, double percentile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,156 @@
+package example.snapshot;
+
+import example.domain.game.BitCave;
+import example.domain.game.Cave;
+import example.domain.game.Item;
+import example.domain.game.Location;
+import example.domain.game.Player;
+import example.game.GameState;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+// The state of a room after a tick, written to a temporary file that replaces the previous snapshot atomically
+// so a crash while writing leaves the previous one intact. Read back by mapping the file into memory.
+//
+//   "MZS2", tick (long), step, rows, columns, cave byte count, cave bytes as BitCave.toBytes,
+//   player count, ('P' name byte count, name bytes | 'D' id, size ordinal, row, column, health, gold)*,
+//   item count, ('G' | 'H', id, value, row, column)*
+// where numbers are big endian ints unless noted otherwise and names are UTF-8.
+public record Snapshot(long tick, Cave cave, GameState state) {
+    static final int MAGIC = 'M' << 24 | 'Z' << 16 | 'S' << 8 | '2';
+
+    public void write(Path path) throws IOException {
+        final var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (final var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            write(output);
+            output.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void write(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeLong(tick);
+        output.writeInt(state.step());
+        output.writeInt(cave.rows());
+        output.writeInt(cave.columns());
+        final var cells = BitCave.of(cave).toBytes();
+        output.writeInt(cells.length);
+        output.write(cells);
+
+        output.writeInt(state.players().length);
+        for (int i = 0; i < state.players().length; i++) {
+            switch (state.players()[i]) {
+                case Player.HumanPlayer(String name) -> {
+                    final var bytes = name.getBytes(StandardCharsets.UTF_8);
+                    output.writeByte('P');
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+                case Player.Dragon(int id, Player.Dragon.Size size) -> {
+                    output.writeByte('D');
+                    output.writeInt(id);
+                    output.writeByte(size.ordinal());
+                }
+            }
+            output.writeInt(state.rows()[i]);
+            output.writeInt(state.columns()[i]);
+            output.writeInt(state.health()[i]);
+            output.writeInt(state.gold()[i]);
+        }
+
+        output.writeInt(state.items().size());
+        for (final var entry : state.items().entrySet()) {
+            switch (entry.getKey()) {
+                case Item.Gold(int id, int value) -> {
+                    output.writeByte('G');
+                    output.writeInt(id);
+                    output.writeInt(value);
+                }
+                case Item.Health(int id, int value) -> {
+                    output.writeByte('H');
+                    output.writeInt(id);
+                    output.writeInt(value);
+                }
+            }
+            output.writeInt(entry.getValue().row());
+            output.writeInt(entry.getValue().column());
+        }
+    }
+
+    // null if there is no snapshot at the path
+    public static Snapshot read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static Snapshot read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot");
+            }
+
+            final var tick = buffer.getLong();
+            final var step = buffer.getInt();
+            final var rows = buffer.getInt();
+            final var columns = buffer.getInt();
+            final var cells = new byte[buffer.getInt()];
+            buffer.get(cells);
+            final var cave = BitCave.fromBytes(rows, columns, cells);
+
+            final var count = buffer.getInt();
+            final var players = new Player[count];
+            final var playerRows = new int[count];
+            final var playerColumns = new int[count];
+            final var health = new int[count];
+            final var gold = new int[count];
+            for (int i = 0; i < count; i++) {
+                players[i] = switch (buffer.get()) {
+                    case 'P' -> {
+                        final var bytes = new byte[buffer.getInt()];
+                        buffer.get(bytes);
+                        yield new Player.HumanPlayer(new String(bytes, StandardCharsets.UTF_8));
+                    }
+                    case 'D' -> new Player.Dragon(buffer.getInt(), Player.Dragon.Size.values()[buffer.get()]);
+                    default -> throw new IOException("Unknown player");
+                };
+                playerRows[i] = buffer.getInt();
+                playerColumns[i] = buffer.getInt();
+                health[i] = buffer.getInt();
+                gold[i] = buffer.getInt();
+            }
+
+            final var items = new HashMap<Item, Location>();
+            for (var remaining = buffer.getInt(); remaining > 0; remaining--) {
+                final Item item = switch (buffer.get()) {
+                    case 'G' -> new Item.Gold(buffer.getInt(), buffer.getInt());
+                    case 'H' -> new Item.Health(buffer.getInt(), buffer.getInt());
+                    default -> throw new IOException("Unknown item");
+                };
+                items.put(item, new Location(buffer.getInt(), buffer.getInt()));
+            }
+
+            return new Snapshot(tick, cave, new GameState(step, players, playerRows, playerColumns, health, gold, items));
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package example.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// Writes the snapshots of a room on a thread of its own. The tick only hands the snapshot over, when the previous one
+// is still being written the newer one is skipped instead of waiting or piling up.
+public final class SnapshotWriter implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotWriter.class);
+    private static final Snapshot END = new Snapshot(-1, null, null);
+
+    private final BlockingQueue<Snapshot> pending = new ArrayBlockingQueue<>(1);
+    private final Path path;
+    private final int interval;
+    private final LongAdder skipped;
+    private final Thread writer;
+
+    // a snapshot every interval ticks
+    public SnapshotWriter(Path path, int interval, LongAdder skipped) {
+        this.path = path;
+        this.interval = interval;
+        this.skipped = skipped;
+        this.writer = Thread.ofPlatform().name("snapshot-" + path.getFileName()).daemon().start(this::write);
+    }
+
+    public boolean due(long tick) {
+        return tick % interval == 0;
+    }
+
+    public void offer(Snapshot snapshot) {
+        if (!pending.offer(snapshot)) {
+            skipped.increment();
+        }
+    }
+
+    // waits until the snapshots handed over are written
+    @Override
+    public void close() {
+        try {
+            pending.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write() {
+        try {
+            for (; ; ) {
+                final var snapshot = pending.take();
+                if (snapshot == END) {
+                    return;
+                }
+
+                try {
+                    final var start = System.nanoTime();
+                    snapshot.write(path);
+                    logger.debug("Snapshot of tick {} written to {} in {} ms", snapshot.tick(), path, (System.nanoTime() - start) / 1_000_000);
+                } catch (IOException e) {
+                    logger.error("Cannot write snapshot to {}", path, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
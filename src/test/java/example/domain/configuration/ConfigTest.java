@@ -22,4 +22,20 @@ class ConfigTest {
         final var expected = new Config(known);
         Assertions.assertEquals(expected, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void rooms() throws JsonProcessingException {
+        final var known = List.of(
+                new PlayerConfiguration(new Request.Authorize("1234"), new Player.HumanPlayer("Player0"), "small")
+        );
+        final var rooms = List.of(
+                new RoomConfiguration("small", 10, 10, null),
+                new RoomConfiguration("fast", 20, 30, new TickConfiguration(10, TickConfiguration.Overrun.CatchUp))
+        );
+
+        final var actual = objectMapper.readValue("{\"known\":[{\"authorize\":{\"type\":\"A\",\"key\":\"1234\"},\"player\":{\"type\":\"P\",\"name\":\"Player0\"},\"room\":\"small\"}]," +
+                "\"rooms\":[{\"name\":\"small\",\"rows\":10,\"columns\":10},{\"name\":\"fast\",\"rows\":20,\"columns\":30,\"tick\":{\"ticksPerSecond\":10,\"overrun\":\"CatchUp\"}}]}", Config.class);
+        final var expected = new Config(known, null, rooms, null, null, null, null);
+        Assertions.assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,51 @@
+package example.domain.game;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.domain.Response;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+class BitCaveTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void rocks() {
+        final var cave = CaveGenerator.generateUsingCellularAutomata(30, 130);
+        final var bitCave = BitCave.of(SimpleCave.of(cave));
+
+        for (int row = 0; row < cave.rows(); row++) {
+            for (int column = 0; column < cave.columns(); column++) {
+                Assertions.assertEquals(cave.rock(row, column), bitCave.rock(row, column));
+            }
+        }
+    }
+
+    @Test
+    void mapper() throws JsonProcessingException {
+        final var cave = CaveGenerator.generateUsingDrunkenWalk(40, 70);
+
+        final var compact = objectMapper.writeValueAsString(new Response.StateCave(BitCave.of(cave)));
+        final var simple = objectMapper.writeValueAsString(new Response.StateCave(SimpleCave.of(cave)));
+        final var actual = ((Response.StateCave) objectMapper.readValue(compact, Response.class)).cave();
+
+        Assertions.assertInstanceOf(BitCave.class, actual);
+        Assertions.assertEquals(cave.rows(), actual.rows());
+        Assertions.assertEquals(cave.columns(), actual.columns());
+        for (int row = 0; row < cave.rows(); row++) {
+            for (int column = 0; column < cave.columns(); column++) {
+                Assertions.assertEquals(cave.rock(row, column), actual.rock(row, column));
+            }
+        }
+        Assertions.assertTrue(compact.length() * 20 < simple.length());
+    }
+
+    @Test
+    void truncated() {
+        final var cells = BitCave.of(CaveGenerator.generateUsingCellularAutomata(10, 13)).toBytes();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BitCave.fromBytes(10, 13, Arrays.copyOf(cells, cells.length - 1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BitCave.fromBytes(10, 14, cells));
+    }
+}
@@ -0,0 +1,60 @@
+package example.domain.game;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+
+class CaveGeneratorTest {
+    @Test
+    public void seeded() {
+        Assertions.assertArrayEquals(
+                BitCave.of(CaveGenerator.generateUsingCellularAutomata(40, 60, 7)).toBytes(),
+                BitCave.of(CaveGenerator.generateUsingCellularAutomata(40, 60, 7)).toBytes());
+        Assertions.assertArrayEquals(
+                BitCave.of(CaveGenerator.generateUsingDrunkenWalk(40, 60, 7)).toBytes(),
+                BitCave.of(CaveGenerator.generateUsingDrunkenWalk(40, 60, 7)).toBytes());
+    }
+
+    @Test
+    public void connected() {
+        // several bands and tiles, a column count that is not a multiple of 64
+        for (long seed = 0; seed < 4; seed++) {
+            assertConnected(CaveGenerator.generateUsingCellularAutomata(700, 900, seed));
+            assertConnected(CaveGenerator.generateUsingDrunkenWalk(700, 900, seed));
+        }
+    }
+
+    private static void assertConnected(Cave cave) {
+        var free = 0;
+        var start = -1;
+        for (int row = 0; row < cave.rows(); row++) {
+            for (int column = 0; column < cave.columns(); column++) {
+                final var border = row == 0 || column == 0 || row == cave.rows() - 1 || column == cave.columns() - 1;
+                Assertions.assertTrue(!border || cave.rock(row, column));
+                if (!cave.rock(row, column)) {
+                    free++;
+                    start = row * cave.columns() + column;
+                }
+            }
+        }
+        Assertions.assertTrue(free > cave.rows() * cave.columns() / 4);
+
+        final var visited = new boolean[cave.rows() * cave.columns()];
+        final var queue = new ArrayDeque<Integer>();
+        visited[start] = true;
+        queue.add(start);
+        var reached = 0;
+        while (!queue.isEmpty()) {
+            final int cell = queue.poll();
+            reached++;
+            for (final var neighbour : new int[]{cell - cave.columns(), cell + cave.columns(), cell - 1, cell + 1}) {
+                if (!visited[neighbour] && !cave.rock(neighbour / cave.columns(), neighbour % cave.columns())) {
+                    visited[neighbour] = true;
+                    queue.add(neighbour);
+                }
+            }
+        }
+        Assertions.assertEquals(free, reached);
+    }
+}
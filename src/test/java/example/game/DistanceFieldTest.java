@@ -0,0 +1,35 @@
+package example.game;
+
+import example.domain.game.Direction;
+import example.domain.game.SimpleCave;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DistanceFieldTest {
+    @Test
+    public void distancesSurviveGenerationsStartingOver() {
+        // a single row with rock in its middle
+        final var rocks = new boolean[9];
+        rocks[4] = true;
+        final var field = new DistanceField(new SimpleCave(rocks, 1, 9), 3);
+
+        // the left half is reached once, a refresh is dropped so that the left half keeps its stamp in the array that
+        // will hold the distances of the same generation once the generations started over
+        field.clear();
+        field.source(0, 0);
+        Assertions.assertTrue(field.spread(Integer.MAX_VALUE));
+        field.clear();
+        for (int refresh = 0; refresh < 65_534; refresh++) {
+            field.clear();
+            field.source(0, 8);
+            Assertions.assertTrue(field.spread(Integer.MAX_VALUE));
+        }
+
+        Assertions.assertEquals(3, field.distance(0, 5));
+        Assertions.assertEquals(0, field.distance(0, 8));
+        Assertions.assertEquals(DistanceField.UNREACHED, field.distance(0, 4));
+        Assertions.assertEquals(DistanceField.UNREACHED, field.distance(0, 3));
+        Assertions.assertEquals(DistanceField.UNREACHED, field.distance(0, 0));
+        Assertions.assertEquals(Direction.Right, field.downhill(0, 6));
+    }
+}
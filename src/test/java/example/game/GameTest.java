@@ -4,9 +4,14 @@ import example.domain.game.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 public class GameTest {
     private static class EmptyCave implements Cave {
@@ -121,4 +126,173 @@ public class GameTest {
         Assertions.assertEquals(gold1.value(), game.gold(player1));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void changes() {
+        final var cave = new EmptyCave();
+        final var game = new Game(cave);
+
+        final var player1 = new Player.HumanPlayer("1");
+        final var gold1 = new Item.Gold(0, 10);
+
+        game.add(player1, () -> new Location(1, 1));
+        game.add(gold1, () -> new Location(2, 1));
+        game.drainChanges();
+
+        game.step(List.of(new Action(player1, Direction.Down)));
+        final var changes = game.drainChanges();
+
+        Assertions.assertEquals(Map.of(player1, new Location(2, 1)), changes.playersMoved());
+        Assertions.assertEquals(Set.of(gold1), changes.itemsRemoved());
+        Assertions.assertEquals(Set.copyOf(game.itemLocation().keySet()), changes.itemsAdded().keySet());
+    }
+
+    @Test
+    public void occupiedLocationIsSkipped() {
+        final var cave = new SimpleCave(new boolean[3 * 3], 3, 3);
+        final var game = new Game(cave);
+
+        final var player1 = new Player.HumanPlayer("1");
+        final var player2 = new Player.HumanPlayer("2");
+        final var gold1 = new Item.Gold(0, 10);
+        final var locations = List.of(new Location(1, 1), new Location(1, 2), new Location(1, 1), new Location(1, 2), new Location(2, 2)).iterator();
+
+        game.add(player1, locations::next);
+        game.add(gold1, locations::next);
+        game.add(player2, locations::next);
+
+        Assertions.assertEquals(Map.of(player1, new Location(1, 1), player2, new Location(2, 2)), game.playerLocation());
+        Assertions.assertEquals(Map.of(gold1, new Location(1, 2)), game.itemLocation());
+    }
+
+    @Test
+    public void parallelStepMatchesSequential() {
+        final var random = new Random(7);
+        final var rows = 100;
+        final var columns = 120;
+        final var rocks = new boolean[rows * columns];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                final var border = row == 0 || column == 0 || row == rows - 1 || column == columns - 1;
+                rocks[row * columns + column] = border || random.nextInt(5) == 0;
+            }
+        }
+        final var cave = new SimpleCave(rocks, rows, columns);
+
+        final var sequential = new Game(cave, 42);
+        final var parallel = new Game(cave, 42);
+        final var pool = new ForkJoinPool(4);
+        parallel.parallel(pool);
+
+        final var players = new ArrayList<Player>();
+        for (int i = 0; i < 2 * Game.PARALLEL_THRESHOLD; i++) {
+            final var player = new Player.HumanPlayer("Player " + i);
+            players.add(player);
+            sequential.add(player, sequential::randomLocation);
+            parallel.add(player, parallel::randomLocation);
+        }
+
+        try {
+            final var directions = Direction.values();
+            for (int step = 0; step < 200; step++) {
+                final var actions = new ArrayList<Action>();
+                for (int i = 0; i < players.size() * 5 / 4; i++) {
+                    final var direction = random.nextInt(8) == 0 ? null : directions[random.nextInt(directions.length)];
+                    actions.add(new Action(players.get(random.nextInt(players.size())), direction));
+                }
+                sequential.step(actions);
+                parallel.step(actions);
+
+                Assertions.assertEquals(sequential.playerLocation(), parallel.playerLocation());
+                Assertions.assertEquals(sequential.playerHealth(), parallel.playerHealth());
+                Assertions.assertEquals(sequential.playerGold(), parallel.playerGold());
+                Assertions.assertEquals(sequential.itemLocation(), parallel.itemLocation());
+                Assertions.assertEquals(sequential.drainChanges(), parallel.drainChanges());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void dragonChasesNearestPlayer() {
+        final var game = new Game(new SimpleCave(new boolean[11 * 11], 11, 11), 1);
+        final var player = new Player.HumanPlayer("1");
+        final var dragon = new Player.Dragon(0, Player.Dragon.Size.Large);
+        game.add(player, () -> new Location(5, 5));
+        game.add(dragon, () -> new Location(5, 0));
+
+        game.step(List.of());
+        Assertions.assertEquals(new Location(5, 1), game.playerLocation().get(dragon));
+
+        for (int step = 0; step < 4; step++) {
+            game.step(List.of());
+        }
+        Assertions.assertEquals(new Location(5, 5), game.playerLocation().get(dragon));
+        Assertions.assertTrue(game.health(player) < 500);
+    }
+
+    @Test
+    public void dragonGuardsGoldOutOfSight() {
+        final var columns = 60;
+        final var rocks = new boolean[3 * columns];
+        Arrays.fill(rocks, 0, columns, true);
+        Arrays.fill(rocks, 2 * columns, 3 * columns, true);
+        final var game = new Game(new SimpleCave(rocks, 3, columns), 1);
+        final var dragon = new Player.Dragon(0, Player.Dragon.Size.Small);
+        game.add(new Item.Gold(0, 10), () -> new Location(1, 10));
+        game.add(dragon, () -> new Location(1, 30));
+        game.add(new Player.HumanPlayer("1"), () -> new Location(1, 30 + Game.DRAGON_SIGHT + 4));
+
+        for (int step = 0; step < 30; step++) {
+            game.step(List.of());
+        }
+        Assertions.assertEquals(new Location(1, 10 + Game.DRAGON_GUARD), game.playerLocation().get(dragon));
+    }
+
+    @Test
+    public void corruptStateIsNotRestored() {
+        final var rocks = new boolean[9];
+        rocks[0] = true;
+        final var cave = new SimpleCave(rocks, 3, 3);
+        final var sameCell = new GameState(0, new Player[0], new int[0], new int[0], new int[0], new int[0],
+                Map.of(new Item.Gold(1, 10), new Location(1, 1), new Item.Health(2, 10), new Location(1, 1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Game(cave, sameCell, new Random(1)));
+        final var onRock = new GameState(0, new Player[]{new Player.HumanPlayer("Alice")}, new int[]{0}, new int[]{0}, new int[]{500}, new int[]{0}, Map.of());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Game(cave, onRock, new Random(1)));
+    }
+
+    @Test
+    public void dragonsNeedDenseCave() {
+        final var game = new Game(new EmptyCave());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> game.add(new Player.Dragon(0, Player.Dragon.Size.Small), () -> new Location(0, 0)));
+        Assertions.assertTrue(game.playerLocation().isEmpty());
+    }
+
+    @Test
+    public void randomLocationDrawsOnlyFreeCells() {
+        final var columns = 10;
+        final var rocks = new boolean[3 * columns];
+        Arrays.fill(rocks, true);
+        Arrays.fill(rocks, columns + 1, 2 * columns - 1, false);
+        final var game = new Game(new SimpleCave(rocks, 3, columns), 1);
+        for (int i = 0; i < 3; i++) {
+            game.add(new Item.Gold(i, 10), game::randomLocation);
+            game.add(new Item.Health(i, 10), game::randomLocation);
+        }
+        final var first = new Player.HumanPlayer("1");
+        final var second = new Player.HumanPlayer("2");
+        game.add(first, game::randomLocation);
+        game.add(second, game::randomLocation);
+
+        final var taken = new HashSet<>(game.itemLocation().values());
+        taken.addAll(game.playerLocation().values());
+        Assertions.assertEquals(8, taken.size());
+        Assertions.assertThrows(IllegalStateException.class, game::randomLocation);
+
+        // every other cell holds an item or a player, so the cell the first player leaves is the only free one
+        final var left = game.playerLocation().get(first);
+        game.step(List.of(new Action(first, left.column() > 1 ? Direction.Left : Direction.Right)));
+        Assertions.assertNotEquals(left, game.playerLocation().get(first));
+        Assertions.assertEquals(left, game.randomLocation());
+    }
+}
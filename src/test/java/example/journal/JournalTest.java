@@ -0,0 +1,101 @@
+package example.journal;
+
+import example.domain.game.Action;
+import example.domain.game.CaveGenerator;
+import example.domain.game.Direction;
+import example.domain.game.Player;
+import example.game.Game;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class JournalTest {
+    // plays a seeded game the way a room does and journals every tick
+    private static Game play(Journal journal, long seed, int ticks) {
+        final var game = new Game(CaveGenerator.generateUsingDrunkenWalk(30, 40, seed), seed);
+        final var players = new ArrayList<Player.HumanPlayer>();
+        final var random = new Random(seed);
+        for (long tick = 1; tick <= ticks; tick++) {
+            final var joined = new ArrayList<Player>();
+            if (tick == 1) {
+                for (final var size : Player.Dragon.Size.values()) {
+                    final var dragon = new Player.Dragon(size.ordinal(), size);
+                    game.add(dragon, game::randomLocation);
+                    joined.add(dragon);
+                }
+            }
+            if (tick % 10 == 1) {
+                final var player = new Player.HumanPlayer("Player " + players.size());
+                game.add(player, game::randomLocation);
+                players.add(player);
+                joined.add(player);
+            }
+
+            final var actions = new ArrayList<Action>();
+            for (final var player : players) {
+                if (random.nextInt(4) > 0) {
+                    actions.add(new Action(player, Direction.values()[random.nextInt(Direction.values().length)]));
+                }
+            }
+            game.step(actions);
+            journal.record(new Journal.Tick(tick, List.copyOf(joined), List.copyOf(actions), game.drainChanges().itemsAdded()));
+        }
+        return game;
+    }
+
+    private static void assertSameState(Game expected, Game actual) {
+        Assertions.assertEquals(expected.playerLocation(), actual.playerLocation());
+        Assertions.assertEquals(expected.playerHealth(), actual.playerHealth());
+        Assertions.assertEquals(expected.playerGold(), actual.playerGold());
+        Assertions.assertEquals(expected.itemLocation(), actual.itemLocation());
+    }
+
+    @Test
+    public void replaysToTheSameState(@TempDir Path directory) throws IOException {
+        final var seed = 42L;
+        final var path = directory.resolve("room.journal");
+        final var cave = CaveGenerator.generateUsingDrunkenWalk(30, 40, seed);
+
+        final Game original;
+        try (final var journal = Journal.create(path, seed, cave)) {
+            original = play(journal, seed, 200);
+        }
+
+        assertSameState(original, Replay.replay(path, Long.MAX_VALUE));
+
+        final Game halfway;
+        try (final var journal = new Journal(new ByteArrayOutputStream(), seed, cave)) {
+            halfway = play(journal, seed, 120);
+        }
+        assertSameState(halfway, Replay.replay(path, 120));
+    }
+
+    @Test
+    public void truncatedJournalEndsAtLastCompleteTick() throws IOException {
+        final var seed = 7L;
+        final var cave = CaveGenerator.generateUsingDrunkenWalk(30, 40, seed);
+        final var output = new ByteArrayOutputStream();
+        try (final var journal = new Journal(output, seed, cave)) {
+            play(journal, seed, 50);
+        }
+
+        final var bytes = output.toByteArray();
+        try (final var reader = new JournalReader(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)))) {
+            Assertions.assertEquals(seed, reader.seed());
+            long last = 0;
+            for (var tick = reader.next(); tick != null; tick = reader.next()) {
+                last = tick.tick();
+            }
+            Assertions.assertEquals(49, last);
+        }
+    }
+}
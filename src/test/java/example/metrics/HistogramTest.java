@@ -0,0 +1,36 @@
+package example.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+    @Test
+    public void percentiles() {
+        final var histogram = new Histogram();
+        Assertions.assertEquals(0, histogram.percentile(0.99));
+
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        Assertions.assertEquals(1000, histogram.count());
+        Assertions.assertEquals(500500, histogram.sum());
+        Assertions.assertEquals(1000, histogram.max());
+        for (final var percentile : new double[]{0.5, 0.9, 0.99}) {
+            final var exact = (long) (percentile * 1000);
+            final var reported = histogram.percentile(percentile);
+            Assertions.assertTrue(reported >= exact && reported <= exact * 1.125, percentile + ": " + reported);
+        }
+        Assertions.assertEquals(1000, histogram.percentile(1));
+    }
+
+    @Test
+    public void extremes() {
+        final var histogram = new Histogram();
+        histogram.record(0);
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        Assertions.assertEquals(0, histogram.percentile(0.5));
+        Assertions.assertEquals(Long.MAX_VALUE, histogram.percentile(1));
+    }
+}
@@ -0,0 +1,55 @@
+package example.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ReflectionException;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+class MetricsTest {
+    @Test
+    public void values() {
+        final var metrics = new Metrics();
+        metrics.counter(Metrics.name("client", "default", "Player 1") + "_bytes").add(10);
+        metrics.gauge("connections", () -> 3);
+        metrics.histogram("tick_nanos").record(7);
+
+        final var values = metrics.values();
+        Assertions.assertEquals(10, values.get("client_default_Player_1_bytes"));
+        Assertions.assertEquals(3, values.get("connections"));
+        Assertions.assertEquals(1, values.get("tick_nanos_count"));
+        Assertions.assertEquals(7, values.get("tick_nanos_p99"));
+
+        metrics.counter("client_default_Player_1_x_bytes").add(5);
+        metrics.remove("client_default_Player_1_bytes");
+        Assertions.assertNull(metrics.values().get("client_default_Player_1_bytes"));
+        Assertions.assertEquals(5, metrics.values().get("client_default_Player_1_x_bytes"));
+    }
+
+    @Test
+    public void mbeanHasNoOperations() {
+        final var mbean = new MetricsMBean(new Metrics());
+        final var thrown = Assertions.assertThrows(ReflectionException.class, () -> mbean.invoke("reset", new Object[0], new String[0]));
+        Assertions.assertInstanceOf(NoSuchMethodException.class, thrown.getTargetException());
+    }
+
+    @Test
+    public void scrape() throws IOException, InterruptedException {
+        final var metrics = new Metrics();
+        metrics.counter("connections_accepted").add(2);
+
+        try (final var server = new MetricsHttpServer(metrics, 0);
+             final var client = HttpClient.newHttpClient()) {
+            server.start();
+            final var response = client.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, response.statusCode());
+            Assertions.assertEquals("connections_accepted 2\n", response.body());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package example.server;
+
+import example.domain.Response;
+import example.domain.game.Item;
+import example.domain.game.Location;
+import example.domain.game.Player;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+class AreaIndexTest {
+    @Test
+    public void withinRadius() {
+        final var near = new Response.StateLocations.PlayerLocation(new Player.HumanPlayer("near"), new Location(20, 20));
+        final var corner = new Response.StateLocations.PlayerLocation(new Player.HumanPlayer("corner"), new Location(25, 15));
+        final var far = new Response.StateLocations.PlayerLocation(new Player.HumanPlayer("far"), new Location(26, 20));
+        final var gold = new Response.StateLocations.ItemLocation(new Item.Gold(1, 10), new Location(16, 24));
+        final var health = new Response.StateLocations.ItemLocation(new Item.Health(1, 10), new Location(100, 100));
+        final var index = new AreaIndex(List.of(gold, health), List.of(near, corner, far));
+
+        final var center = index.location(near.entity());
+        Assertions.assertEquals(new Location(20, 20), center);
+        Assertions.assertEquals(Set.of(near, corner), Set.copyOf(index.players(center, 5)));
+        Assertions.assertEquals(List.of(gold), index.items(center, 5));
+        Assertions.assertEquals(Set.of(gold, health), Set.copyOf(index.items(center, Integer.MAX_VALUE)));
+        Assertions.assertNull(index.location(new Player.HumanPlayer("unknown")));
+    }
+
+    @Test
+    public void matchesScan() {
+        final var random = new Random(3);
+        final var players = new ArrayList<Response.StateLocations.PlayerLocation>();
+        for (int i = 0; i < 2000; i++) {
+            players.add(new Response.StateLocations.PlayerLocation(new Player.HumanPlayer("Player " + i), new Location(random.nextInt(500), random.nextInt(500))));
+        }
+        final var index = new AreaIndex(List.of(), players);
+
+        for (final var radius : List.of(0, 7, 16, 40)) {
+            for (final var player : players.subList(0, 50)) {
+                final var center = player.location();
+                final var expected = players.stream()
+                        .filter(other -> Math.abs(other.location().row() - center.row()) <= radius && Math.abs(other.location().column() - center.column()) <= radius)
+                        .toList();
+                Assertions.assertEquals(Set.copyOf(expected), Set.copyOf(index.players(center, radius)));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package example.server;
+
+import example.domain.Request;
+import example.domain.Response;
+import example.domain.game.CaveGenerator;
+import example.domain.game.Direction;
+import example.domain.game.Item;
+import example.domain.game.Location;
+import example.domain.game.Player;
+import example.game.Changes;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class BinaryProtocolTest {
+    private final Roster roster = new Roster();
+    private final BinaryProtocol protocol = new BinaryProtocol(roster);
+
+    @Test
+    public void command() throws IOException {
+        final var os = new ByteArrayOutputStream();
+        BinaryProtocol.Client.writeCommand(os, Direction.Left);
+        BinaryProtocol.Client.writeCommand(os, Direction.Down);
+
+        Assertions.assertEquals(4, os.size());
+        final var is = new ByteArrayInputStream(os.toByteArray());
+        Assertions.assertEquals(new Request.Command(Direction.Left), protocol.read(is));
+        Assertions.assertEquals(new Request.Command(Direction.Down), protocol.read(is));
+        Assertions.assertNull(protocol.read(is));
+    }
+
+    @Test
+    public void state() throws IOException {
+        final var player0 = new Player.HumanPlayer("Player0");
+        final var player1 = new Player.HumanPlayer("Player1");
+        final var gold = new Item.Gold(0, 10);
+        final var health = new Item.Health(1, 20);
+        final var itemLocations = List.of(
+                new Response.StateLocations.ItemLocation(gold, new Location(1, 2)),
+                new Response.StateLocations.ItemLocation(health, new Location(3, 4)),
+                // beyond 16 bits in both coordinates
+                new Response.StateLocations.ItemLocation(new Item.Gold(2, 30), new Location(65_536, 100_000))
+        );
+        final var playerLocations = List.of(
+                new Response.StateLocations.PlayerLocation(player0, new Location(5, 6)),
+                new Response.StateLocations.PlayerLocation(player1, new Location(700, 800))
+        );
+        roster.register(List.of(player0, player1));
+
+        final var os = new ByteArrayOutputStream();
+        final var sent = protocol.writeRoster(os, roster, 0);
+        protocol.writeState(os, protocol.encodeLocations(itemLocations, playerLocations), 100, 7000);
+        protocol.writeState(os, protocol.encodeDelta(new Changes(Map.of(), Set.of(gold), Map.of(player1, new Location(5, 6)))), 90, 7000);
+
+        final var client = new BinaryProtocol.Client();
+        final var is = new ByteArrayInputStream(os.toByteArray());
+        Assertions.assertEquals(2, sent);
+        Assertions.assertEquals(new Response.StateLocations(itemLocations, playerLocations, 100, 7000), client.read(is));
+        Assertions.assertEquals(new Response.StateDelta(List.of(), List.of(gold), List.of(new Response.StateLocations.PlayerLocation(player1, new Location(5, 6))), 90, 7000), client.read(is));
+        Assertions.assertNull(client.read(is));
+    }
+
+    @Test
+    public void cave() throws IOException {
+        final var cave = CaveGenerator.generateUsingCellularAutomata(13, 17);
+
+        final var actual = (Response.StateCave) new BinaryProtocol.Client().read(new ByteArrayInputStream(protocol.encodeCave(cave)));
+        Assertions.assertEquals(cave.rows(), actual.cave().rows());
+        Assertions.assertEquals(cave.columns(), actual.cave().columns());
+        for (int row = 0; row < cave.rows(); row++) {
+            for (int column = 0; column < cave.columns(); column++) {
+                Assertions.assertEquals(cave.rock(row, column), actual.cave().rock(row, column));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package example.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.domain.Response;
+import example.domain.game.BitCave;
+import example.domain.game.Cave;
+import example.domain.game.CaveGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+class CavePayloadsTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Cave cave = CaveGenerator.generateUsingCellularAutomata(300, 500, 3);
+    // small chunks so that the cave takes several of them
+    private final CavePayloads payloads = new CavePayloads(cave, 1024);
+
+    @Test
+    public void binaryChunks() throws IOException {
+        final var protocol = new BinaryProtocol(new Roster());
+        final var payload = payloads.payload(protocol, false, true);
+        Assertions.assertSame(payload, payloads.payload(protocol, false, true));
+        Assertions.assertSame(payload, payloads.payload(protocol, true, true));
+        Assertions.assertTrue(payload.length < payloads.payload(protocol, false, false).length);
+
+        final var is = new ByteArrayInputStream(payload);
+        final var actual = (Response.StateCave) new BinaryProtocol.Client().read(is);
+        Assertions.assertArrayEquals(BitCave.of(cave).toBytes(), BitCave.of(actual.cave()).toBytes());
+        Assertions.assertEquals(-1, is.read());
+    }
+
+    @Test
+    public void jsonChunks() throws IOException {
+        final var protocol = new JsonProtocol(objectMapper);
+        final var is = new ByteArrayInputStream(payloads.payload(protocol, false, true));
+        final var assembler = new CavePayloads.Assembler();
+        Cave actual = null;
+        var chunks = 0;
+        for (var line = JsonProtocol.readLine(is); line != null; line = JsonProtocol.readLine(is)) {
+            final var chunk = (Response.StateCaveChunk) objectMapper.readValue(line, Response.class);
+            Assertions.assertEquals(chunks++, chunk.chunk());
+            Assertions.assertTrue(chunk.data().length <= 1024);
+            actual = assembler.add(chunk);
+            Assertions.assertEquals(chunk.chunk() == chunk.chunks() - 1, actual != null);
+        }
+        Assertions.assertTrue(chunks > 1);
+        Assertions.assertArrayEquals(BitCave.of(cave).toBytes(), BitCave.of(actual).toBytes());
+
+        // legacy clients get the cave as before
+        Assertions.assertEquals(objectMapper.writeValueAsString(new Response.StateCave(BitCave.of(cave))) + "\n",
+                new String(payloads.payload(protocol, true, false)));
+    }
+}
@@ -0,0 +1,40 @@
+package example.server;
+
+import example.domain.game.Action;
+import example.domain.game.Direction;
+import example.domain.game.Player;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+class CommandSlotsTest {
+    @Test
+    public void firstCommandOfTickWins() {
+        final var commands = new CommandSlots();
+        final var player1 = new Player.HumanPlayer("1");
+        final var player2 = new Player.HumanPlayer("2");
+        final var slot1 = commands.slot(player1);
+        final var slot2 = commands.slot(player2);
+
+        Assertions.assertTrue(CommandSlots.offer(slot1, new Action(player1, Direction.Up)));
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertFalse(CommandSlots.offer(slot1, new Action(player1, Direction.Down)));
+        }
+        Assertions.assertTrue(CommandSlots.offer(slot2, new Action(player2, Direction.Left)));
+
+        final var actions = new ArrayList<Action>();
+        commands.drainTo(actions);
+        Assertions.assertEquals(Set.of(new Action(player1, Direction.Up), new Action(player2, Direction.Left)), Set.copyOf(actions));
+
+        actions.clear();
+        commands.drainTo(actions);
+        Assertions.assertEquals(List.of(), actions);
+
+        Assertions.assertTrue(CommandSlots.offer(commands.slot(player1), new Action(player1, Direction.Right)));
+        commands.drainTo(actions);
+        Assertions.assertEquals(List.of(new Action(player1, Direction.Right)), actions);
+    }
+}
@@ -0,0 +1,63 @@
+package example.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.domain.Response;
+import example.domain.game.Item;
+import example.domain.game.Location;
+import example.domain.game.Player;
+import example.game.Changes;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class JsonProtocolTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonProtocol protocol = new JsonProtocol(objectMapper);
+
+    @Test
+    public void locations() throws IOException {
+        final var itemLocations = List.of(
+                new Response.StateLocations.ItemLocation(new Item.Gold(0, 10), new Location(1, 2)),
+                new Response.StateLocations.ItemLocation(new Item.Health(1, 20), new Location(3, 4))
+        );
+        final var playerLocations = List.of(
+                new Response.StateLocations.PlayerLocation(new Player.HumanPlayer("Player0"), new Location(5, 6))
+        );
+
+        final var locations = protocol.encodeLocations(itemLocations, playerLocations);
+        final var os = new ByteArrayOutputStream();
+        protocol.writeState(os, locations, 100, 7);
+
+        final var actual = objectMapper.readValue(os.toByteArray(), Response.class);
+        final var expected = new Response.StateLocations(itemLocations, playerLocations, 100, 7);
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(objectMapper.writeValueAsString(expected) + "\n", os.toString());
+    }
+
+    @Test
+    public void delta() throws IOException {
+        final var gold = new Item.Gold(0, 10);
+        final var health = new Item.Health(1, 20);
+        final var player = new Player.HumanPlayer("Player0");
+        final var changes = new Changes(Map.of(gold, new Location(1, 2)), Set.of(health), Map.of(player, new Location(5, 6)));
+
+        final var delta = protocol.encodeDelta(changes);
+        final var os = new ByteArrayOutputStream();
+        protocol.writeState(os, delta, 100, 7);
+
+        final var actual = objectMapper.readValue(os.toByteArray(), Response.class);
+        final var expected = new Response.StateDelta(
+                List.of(new Response.StateLocations.ItemLocation(gold, new Location(1, 2))),
+                List.of(health),
+                List.of(new Response.StateLocations.PlayerLocation(player, new Location(5, 6))),
+                100,
+                7
+        );
+        Assertions.assertEquals(expected, actual);
+    }
+}
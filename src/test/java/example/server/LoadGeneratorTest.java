@@ -0,0 +1,20 @@
+package example.server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+class LoadGeneratorTest {
+    @Test
+    public void botsSeeTheirMoves() throws IOException, InterruptedException {
+        final var result = LoadGenerator.run(5, Duration.ofSeconds(2), 20, null);
+
+        Assertions.assertEquals(5, result.connected());
+        Assertions.assertTrue(result.commands() > 0);
+        Assertions.assertTrue(result.latency().count() > 0);
+        Assertions.assertTrue(result.latency().percentile(0.5) < TimeUnit.SECONDS.toNanos(1));
+    }
+}
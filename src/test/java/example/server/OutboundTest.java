@@ -0,0 +1,37 @@
+package example.server;
+
+import example.domain.configuration.OutboundConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.LongAdder;
+
+class OutboundTest {
+    @Test
+    public void coalesce() throws InterruptedException {
+        final var outbound = new Outbound<Integer>(new OutboundConfiguration(2, OutboundConfiguration.SlowConsumer.Coalesce), new LongAdder());
+        Assertions.assertTrue(outbound.offer(1));
+        Assertions.assertTrue(outbound.offer(2));
+        Assertions.assertTrue(outbound.offer(3));
+        Assertions.assertEquals(3, outbound.take());
+        Assertions.assertTrue(outbound.offer(4));
+        Assertions.assertEquals(4, outbound.take());
+    }
+
+    @Test
+    public void drop() throws InterruptedException {
+        final var outbound = new Outbound<Integer>(new OutboundConfiguration(2, OutboundConfiguration.SlowConsumer.Drop), new LongAdder());
+        Assertions.assertTrue(outbound.offer(1));
+        Assertions.assertTrue(outbound.offer(2));
+        Assertions.assertTrue(outbound.offer(3));
+        Assertions.assertEquals(1, outbound.take());
+        Assertions.assertEquals(2, outbound.take());
+    }
+
+    @Test
+    public void disconnect() {
+        final var outbound = new Outbound<Integer>(new OutboundConfiguration(1, OutboundConfiguration.SlowConsumer.Disconnect), new LongAdder());
+        Assertions.assertTrue(outbound.offer(1));
+        Assertions.assertFalse(outbound.offer(2));
+    }
+}
@@ -0,0 +1,68 @@
+package example.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.domain.Request;
+import example.domain.configuration.Config;
+import example.domain.configuration.PlayerConfiguration;
+import example.domain.game.Player;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class PlayerRegistryTest {
+    private static final PlayerConfiguration ALICE = new PlayerConfiguration(new Request.Authorize("1"), new Player.HumanPlayer("Alice"));
+    private static final PlayerConfiguration BOB = new PlayerConfiguration(new Request.Authorize("2"), new Player.HumanPlayer("Bob"));
+    private static final PlayerConfiguration CAROL = new PlayerConfiguration(new Request.Authorize("3"), new Player.HumanPlayer("Carol"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void find() {
+        final var impostor = new PlayerConfiguration(new Request.Authorize("1"), new Player.HumanPlayer("Impostor"));
+        final var registry = new PlayerRegistry(List.of(ALICE, BOB, impostor));
+        Assertions.assertEquals(ALICE, registry.find("1"));
+        Assertions.assertEquals(BOB, registry.find("2"));
+        Assertions.assertNull(registry.find("3"));
+    }
+
+    @Test
+    public void replace() {
+        final var registry = new PlayerRegistry(List.of(ALICE, BOB));
+        Assertions.assertEquals(new PlayerRegistry.Replaced(List.of(CAROL), List.of()), registry.replace(List.of(ALICE, CAROL)));
+        Assertions.assertNull(registry.find("2"));
+        Assertions.assertEquals(CAROL, registry.find("3"));
+    }
+
+    @Test
+    public void replaceReportsPlayersInAnotherRoom() {
+        final var registry = new PlayerRegistry(List.of(ALICE, BOB));
+        final var moved = new PlayerConfiguration(new Request.Authorize("4"), ALICE.player(), "second");
+        Assertions.assertEquals(new PlayerRegistry.Replaced(List.of(), List.of(moved)), registry.replace(List.of(moved, BOB)));
+    }
+
+    @Test
+    public void reloadsWrittenFile(@TempDir Path directory) throws IOException, InterruptedException {
+        final var path = directory.resolve("configuration.json");
+        Files.write(path, objectMapper.writeValueAsBytes(new Config(List.of(ALICE))));
+        final var registry = new PlayerRegistry(List.of(ALICE));
+        final var added = new LinkedBlockingQueue<PlayerConfiguration>();
+
+        try (final var watcher = new RegistryWatcher(path, objectMapper, registry, added::add)) {
+            Files.write(path, "{\"known\":".getBytes());
+            watcher.reload();
+            Assertions.assertEquals(ALICE, registry.find("1"));
+
+            watcher.start();
+            Files.write(path, objectMapper.writeValueAsBytes(new Config(List.of(ALICE, BOB))));
+            Assertions.assertEquals(BOB, added.poll(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(BOB, registry.find("2"));
+        }
+    }
+}
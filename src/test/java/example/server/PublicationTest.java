@@ -0,0 +1,73 @@
+package example.server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+class PublicationTest {
+    @Test
+    public void lateReaderDoesNotMissVersion() throws InterruptedException {
+        final var publication = new Publication<>(4, 0, "zero");
+        publication.publish("one");
+        Assertions.assertEquals(1, publication.await(0));
+        Assertions.assertEquals("one", publication.get(1));
+    }
+
+    @Test
+    public void overwrittenVersionIsGone() {
+        final var publication = new Publication<>(2, 0, 0);
+        for (int i = 1; i <= 3; i++) {
+            publication.publish(i);
+        }
+        Assertions.assertNull(publication.get(1));
+        Assertions.assertEquals(3, publication.get(3));
+    }
+
+    @Test
+    public void everyReaderSeesEveryVersionOnce() throws InterruptedException {
+        final var versions = 100;
+        final var publication = new Publication<>(versions + 1, 0, 0L);
+        final var failures = new ConcurrentLinkedQueue<String>();
+        final var readers = new ArrayList<Thread>();
+        for (int i = 0; i < 1000; i++) {
+            readers.add(Thread.startVirtualThread(() -> {
+                final var seen = new ArrayList<Long>();
+                try {
+                    var lastSeen = 0L;
+                    while (lastSeen < versions) {
+                        final var latest = publication.await(lastSeen);
+                        for (var version = lastSeen + 1; version <= latest; version++) {
+                            seen.add(publication.get(version));
+                        }
+                        lastSeen = latest;
+                    }
+                } catch (InterruptedException e) {
+                    failures.add("interrupted");
+                }
+                if (!seen.equals(expected(versions))) {
+                    failures.add(seen.toString());
+                }
+            }));
+        }
+
+        for (long version = 1; version <= versions; version++) {
+            publication.publish(version);
+            Thread.yield();
+        }
+        for (final var reader : readers) {
+            reader.join();
+        }
+        Assertions.assertEquals(List.of(), List.copyOf(failures));
+    }
+
+    private static List<Long> expected(int versions) {
+        final var expected = new ArrayList<Long>();
+        for (long version = 1; version <= versions; version++) {
+            expected.add(version);
+        }
+        return expected;
+    }
+}
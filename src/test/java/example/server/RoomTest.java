@@ -0,0 +1,93 @@
+package example.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.domain.configuration.OutboundConfiguration;
+import example.domain.configuration.TickConfiguration;
+import example.domain.game.CaveGenerator;
+import example.domain.game.Player;
+import example.game.Game;
+import example.metrics.Metrics;
+import example.snapshot.Snapshot;
+import example.snapshot.SnapshotWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+class RoomTest {
+    @Test
+    public void stalledClientDoesNotDelayOthers() throws InterruptedException {
+        final var executor = Executors.newSingleThreadScheduledExecutor();
+        final var game = new Game(CaveGenerator.generateUsingDrunkenWalk(20, 30, 1), 1);
+        final var room = new Room("test", game, 0, TickConfiguration.DEFAULT, new OutboundConfiguration(2, OutboundConfiguration.SlowConsumer.Coalesce), null, new Metrics(), null, null, executor);
+        final var protocol = new JsonProtocol(new ObjectMapper());
+        final var stalled = new Player.HumanPlayer("stalled");
+        final var healthy = new Player.HumanPlayer("healthy");
+        game.add(stalled, game::randomLocation);
+        game.add(healthy, game::randomLocation);
+
+        final var unblock = new CountDownLatch(1);
+        // ticks published while the client is busy are coalesced, so not every tick is necessarily flushed
+        final var flushed = new CountDownLatch(5);
+        final var stalledThread = Thread.startVirtualThread(() -> room.handleClientState(new OutputStream() {
+            @Override
+            public void write(int b) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, protocol, stalled, false, null));
+        final var healthyThread = Thread.startVirtualThread(() -> room.handleClientState(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void flush() {
+                flushed.countDown();
+            }
+        }, protocol, healthy, false, null));
+
+        try {
+            while (room.waitingClients() != 2) {
+                Thread.onSpinWait();
+            }
+            for (int i = 0; i < 10; i++) {
+                room.processCommands();
+                Thread.sleep(5);
+            }
+            Assertions.assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        } finally {
+            unblock.countDown();
+            stalledThread.interrupt();
+            healthyThread.interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void restoredRoomContinuesItsTick(@TempDir Path directory) throws IOException {
+        final var executor = Executors.newSingleThreadScheduledExecutor();
+        final var path = directory.resolve("test.snapshot");
+        final var snapshots = new SnapshotWriter(path, 1, new LongAdder());
+        final var game = new Game(CaveGenerator.generateUsingDrunkenWalk(20, 30, 1), 1);
+        final var room = new Room("test", game, 41, TickConfiguration.DEFAULT, OutboundConfiguration.DEFAULT, null, new Metrics(), null, snapshots, executor);
+        try {
+            room.processCommands();
+        } finally {
+            snapshots.close();
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(42, Snapshot.read(path).tick());
+    }
+}
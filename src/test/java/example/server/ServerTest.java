@@ -0,0 +1,100 @@
+package example.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.domain.Request;
+import example.domain.Response;
+import example.domain.configuration.Config;
+import example.domain.configuration.MetricsConfiguration;
+import example.domain.configuration.PlayerConfiguration;
+import example.domain.configuration.RoomConfiguration;
+import example.domain.configuration.SnapshotConfiguration;
+import example.domain.game.Player;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class ServerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void otherRoomIsRefused() throws IOException, InterruptedException {
+        final var player = new Player.HumanPlayer("Alice");
+        final var server = new Server(new Config(List.of(new PlayerConfiguration(new Request.Authorize("k1"), player, "first")), null,
+                List.of(new RoomConfiguration("first", 40, 40, null), new RoomConfiguration("second", 40, 40, null)),
+                null, new MetricsConfiguration(null, false), null, null));
+        final int port;
+        try (final var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        final var thread = Thread.ofPlatform().start(() -> server.start(port));
+        try {
+            Assertions.assertInstanceOf(Response.Unauthorized.class, authorize(port, "k1", "second"));
+            Assertions.assertInstanceOf(Response.Authorized.class, authorize(port, "k1", "first"));
+        } finally {
+            server.stop();
+            thread.join();
+        }
+    }
+
+    @Test
+    public void reloadedPlayerStaysInItsRoom(@TempDir Path directory) throws IOException, InterruptedException {
+        final var alice = new Player.HumanPlayer("Alice");
+        final var rooms = List.of(new RoomConfiguration("first", 40, 40, null), new RoomConfiguration("second", 40, 40, null));
+        final var path = directory.resolve("configuration.json");
+        Files.write(path, objectMapper.writeValueAsBytes(new Config(List.of(new PlayerConfiguration(new Request.Authorize("k1"), alice, "first")), null,
+                rooms, null, new MetricsConfiguration(null, false), null, null)));
+        final var server = new Server(path);
+        final int port;
+        try (final var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        final var thread = Thread.ofPlatform().start(() -> server.start(port));
+        try {
+            Assertions.assertInstanceOf(Response.Authorized.class, authorize(port, "k1", "first"));
+            Files.write(path, objectMapper.writeValueAsBytes(new Config(List.of(new PlayerConfiguration(new Request.Authorize("k1"), alice, "second"),
+                    new PlayerConfiguration(new Request.Authorize("k2"), new Player.HumanPlayer("Bob"), "second")), null,
+                    rooms, null, new MetricsConfiguration(null, false), null, null)));
+            // Bob is known once the file is reloaded
+            while (authorize(port, "k2", null) instanceof Response.Unauthorized) {
+                Thread.sleep(10);
+            }
+
+            Assertions.assertInstanceOf(Response.Unauthorized.class, authorize(port, "k1", "second"));
+            Assertions.assertInstanceOf(Response.Authorized.class, authorize(port, "k1", "first"));
+        } finally {
+            server.stop();
+            thread.join();
+        }
+    }
+
+    @Test
+    public void snapshotIntervalMustBePositive(@TempDir Path directory) {
+        for (final var interval : List.of(0, -1)) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new Server(new Config(List.of(), null, null, null,
+                    new MetricsConfiguration(null, false), null, new SnapshotConfiguration(directory.toString(), interval))));
+        }
+    }
+
+    private Response authorize(int port, String key, String room) throws IOException, InterruptedException {
+        for (; ; ) {
+            try (final var socket = new Socket("localhost", port)) {
+                socket.getOutputStream().write(objectMapper.writeValueAsBytes(new Request.Authorize(key,
+                        new Request.Authorize.Options(null, null, null, room, null))));
+                socket.getOutputStream().write('\n');
+                return objectMapper.readValue(JsonProtocol.readLine(new BufferedInputStream(socket.getInputStream())), Response.class);
+            } catch (ConnectException e) {
+                // the server is still starting
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package example.server;
+
+import example.domain.configuration.TickConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class TickSchedulerTest {
+    @Test
+    public void skipsMissedDeadlines() throws InterruptedException {
+        final var executor = Executors.newSingleThreadScheduledExecutor();
+        final var ticks = new CountDownLatch(5);
+        final var scheduler = new TickScheduler(executor, new TickConfiguration(100, TickConfiguration.Overrun.Skip), () -> {
+            try {
+                Thread.sleep(35);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ticks.countDown();
+        });
+
+        scheduler.start();
+        try {
+            Assertions.assertTrue(ticks.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.stop();
+            executor.shutdownNow();
+        }
+
+        Assertions.assertTrue(scheduler.overruns() >= 4);
+        Assertions.assertTrue(scheduler.skipped() >= 6);
+    }
+}
@@ -0,0 +1,39 @@
+package example.simulation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SimulationTest {
+    private static final Map<String, Policy> POLICIES = new LinkedHashMap<>();
+
+    static {
+        POLICIES.put("random", Policy.RANDOM);
+        POLICIES.put("greedy", Policy.GREEDY);
+        POLICIES.put("idle", Policy.IDLE);
+    }
+
+    @Test
+    public void sameSeedSameOutcomes() {
+        final var settings = new Simulation.Settings(8, 500, 3, 11, 30, 40);
+
+        final var outcomes = Simulation.run(settings, POLICIES);
+        Assertions.assertEquals(8 * 3 * 3, outcomes.size());
+        Assertions.assertEquals(outcomes, Simulation.run(settings, POLICIES));
+        Assertions.assertNotEquals(outcomes, Simulation.run(new Simulation.Settings(8, 500, 3, 12, 30, 40), POLICIES));
+    }
+
+    @Test
+    public void summarizesByPolicy() {
+        final var settings = new Simulation.Settings(4, 1000, 4, 3, 30, 40);
+        final var summaries = Simulation.summarize(Simulation.run(settings, POLICIES), settings.ticks());
+
+        Assertions.assertEquals(3, summaries.size());
+        Assertions.assertEquals("random", summaries.get(0).policy());
+        Assertions.assertEquals(16, summaries.get(0).players());
+        Assertions.assertEquals("idle", summaries.get(2).policy());
+        Assertions.assertTrue(summaries.get(1).meanGold() > summaries.get(2).meanGold());
+    }
+}
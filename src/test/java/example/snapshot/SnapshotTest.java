@@ -0,0 +1,80 @@
+package example.snapshot;
+
+import example.domain.game.Action;
+import example.domain.game.CaveGenerator;
+import example.domain.game.Direction;
+import example.domain.game.Player;
+import example.game.Game;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SnapshotTest {
+    private static Game play(long seed) {
+        final var game = new Game(CaveGenerator.generateUsingDrunkenWalk(30, 40, seed), seed);
+        final var players = new ArrayList<Player>();
+        for (final var name : new String[]{"Alice", "Bob", "Żaneta"}) {
+            final var player = new Player.HumanPlayer(name);
+            game.add(player, game::randomLocation);
+            players.add(player);
+        }
+        final var dragon = new Player.Dragon(0, Player.Dragon.Size.Large);
+        game.add(dragon, game::randomLocation);
+        players.add(dragon);
+
+        final var random = new Random(seed);
+        for (int tick = 0; tick < 100; tick++) {
+            final var actions = new ArrayList<Action>();
+            players.forEach(player -> actions.add(new Action(player, Direction.values()[random.nextInt(Direction.values().length)])));
+            game.step(actions);
+        }
+        return game;
+    }
+
+    @Test
+    public void restoresTheGame(@TempDir Path directory) throws IOException {
+        final var game = play(3);
+        final var path = directory.resolve("room.snapshot");
+        new Snapshot(100, game.cave(), game.state()).write(path);
+        Assertions.assertFalse(Files.exists(directory.resolve("room.snapshot.tmp")));
+
+        final var snapshot = Snapshot.read(path);
+        Assertions.assertEquals(100, snapshot.tick());
+        final var restored = new Game(snapshot.cave(), snapshot.state(), new Random());
+        for (int row = 0; row < game.cave().rows(); row++) {
+            for (int column = 0; column < game.cave().columns(); column++) {
+                Assertions.assertEquals(game.cave().rock(row, column), restored.cave().rock(row, column));
+            }
+        }
+        Assertions.assertEquals(game.playerLocation(), restored.playerLocation());
+        Assertions.assertEquals(game.playerHealth(), restored.playerHealth());
+        Assertions.assertEquals(game.playerGold(), restored.playerGold());
+        Assertions.assertEquals(game.itemLocation(), restored.itemLocation());
+        Assertions.assertEquals(game.playerLocation(), restored.drainChanges().playersMoved());
+    }
+
+    @Test
+    public void writerReplacesThePreviousSnapshot(@TempDir Path directory) throws IOException {
+        final var path = directory.resolve("room.snapshot");
+        final var game = play(5);
+        try (final var writer = new SnapshotWriter(path, 10, new LongAdder())) {
+            Assertions.assertFalse(writer.due(5));
+            Assertions.assertTrue(writer.due(10));
+            writer.offer(new Snapshot(10, game.cave(), game.state()));
+        }
+        Assertions.assertEquals(10, Snapshot.read(path).tick());
+
+        try (final var writer = new SnapshotWriter(path, 10, new LongAdder())) {
+            writer.offer(new Snapshot(20, game.cave(), game.state()));
+        }
+        Assertions.assertEquals(20, Snapshot.read(path).tick());
+        Assertions.assertNull(Snapshot.read(directory.resolve("other.snapshot")));
+    }
+}